@@ -2,6 +2,7 @@ plugins {
     id("org.springframework.boot") version "3.2.0"
     id("io.spring.dependency-management") version "1.1.4"
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "ch.notenverwaltung"
@@ -31,6 +32,7 @@ dependencies {
     runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.11.5")
 
     // Utilities
+    implementation("com.github.ben-manes.caffeine:caffeine")
     implementation("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.2.0")
@@ -61,3 +63,11 @@ tasks.named<org.gradle.jvm.tasks.Jar>("jar") {
 tasks.test {
     useJUnitPlatform()
 }
+
+// Microbenchmarks in src/jmh/java, run with ./gradlew jmh
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+}
@@ -0,0 +1,57 @@
+package ch.notenverwaltung.model.dto;
+
+import ch.notenverwaltung.service.SemesterGradeAggregator;
+import ch.notenverwaltung.service.SemesterGradeRows;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the semester report, configured like Spring Boot's ObjectMapper
+ * (java.time module, ISO dates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SemesterResultSerializationBenchmark {
+
+    @Param({"30", "300", "3000"})
+    public int students;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private List<StudentSemesterResultDTO> results;
+
+    @Setup
+    public void setUp() {
+        results = new SemesterGradeAggregator().aggregate(SemesterGradeRows.generate(students, 42L));
+    }
+
+    @Benchmark
+    public byte[] serializeReport() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(results);
+    }
+
+    @Benchmark
+    public byte[] serializeStudent() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(results.get(0));
+    }
+}
@@ -0,0 +1,136 @@
+package ch.notenverwaltung.model.entity;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput into a grades-like table with a uuid primary key, random (v4) vs. time-ordered
+ * (v7) ids, against a local PostgreSQL. Each operation inserts one row; rows are sent in batches of
+ * {@code batchSize} and committed per batch. The sizes of the primary key index and the table after
+ * the run are reported as the secondary results primaryKeyKb and tableKb (see {@link Sizes}); the
+ * index size shows the page splits caused by random ids.
+ * <p>
+ * Connection defaults match application-dev.yml; override with -Djmh.db.url, -Djmh.db.user and
+ * -Djmh.db.password. The benchmark creates and drops its own tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"v4", "v7"})
+    public String idVersion;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> ids;
+    private String table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("jmh.db.url", "jdbc:postgresql://localhost:1232/notenverwaltung?reWriteBatchedInserts=true"),
+                System.getProperty("jmh.db.user", "postgres"),
+                System.getProperty("jmh.db.password", "postgres"));
+        connection.setAutoCommit(false);
+        ids = "v7".equals(idVersion) ? UuidV7Generator::next : UUID::randomUUID;
+        table = "jmh_grades_" + idVersion;
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + table);
+            st.execute("CREATE TABLE " + table + " (id UUID PRIMARY KEY, value NUMERIC(5,2) NOT NULL, "
+                    + "weight NUMERIC(5,2) NOT NULL, student_id UUID NOT NULL, created_on TIMESTAMP(6) NOT NULL)");
+        }
+        connection.commit();
+        insert = connection.prepareStatement("INSERT INTO " + table
+                + " (id, value, weight, student_id, created_on) VALUES (?, ?, ?, ?, ?)");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch(Sizes sizes) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, ids.get());
+            insert.setBigDecimal(2, BigDecimal.valueOf(450 + i % 150, 2));
+            insert.setBigDecimal(3, BigDecimal.ONE);
+            insert.setObject(4, UUID.randomUUID());
+            insert.setTimestamp(5, now);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + table);
+        }
+        connection.commit();
+        insert.close();
+        connection.close();
+    }
+
+    /**
+     * Secondary results with the rows, primary key index size and table size after the last
+     * measurement iteration. JMH sums EVENTS counters over the iterations, so they stay 0 until then.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Sizes {
+        public long rows;
+        public long primaryKeyKb;
+        public long tableKb;
+
+        private int measurements;
+
+        @TearDown(Level.Iteration)
+        public void measure(UuidInsertBenchmark benchmark, IterationParams params) throws SQLException {
+            if (params.getType() != IterationType.MEASUREMENT || ++measurements < params.getCount()) {
+                return;
+            }
+            String table = benchmark.table;
+            try (Statement st = benchmark.connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT count(*), pg_relation_size('" + table + "_pkey'), "
+                         + "pg_relation_size('" + table + "') FROM " + table)) {
+                rs.next();
+                rows = rs.getLong(1);
+                primaryKeyKb = rs.getLong(2) / 1024;
+                tableKb = rs.getLong(3) / 1024;
+            }
+            benchmark.connection.commit();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.dto.GradeDTO;
+import ch.notenverwaltung.model.entity.Grade;
+import ch.notenverwaltung.model.entity.TestEntity;
+import ch.notenverwaltung.model.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Entity-to-DTO mapping of a grade page, as done by GradeService for the grade listings.
+ * The enriched view is a constructor projection in SQL and has no Java mapping step to measure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GradeMappingBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int pageSize;
+
+    private List<Grade> grades;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42L);
+        grades = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            User student = User.builder().id(new UUID(rnd.nextLong(), rnd.nextLong())).username("user" + i).build();
+            TestEntity test = i % 10 == 0 ? null : TestEntity.builder().id(new UUID(rnd.nextLong(), rnd.nextLong())).name("Test " + i).build();
+            grades.add(Grade.builder()
+                    .id(new UUID(rnd.nextLong(), rnd.nextLong()))
+                    .value(BigDecimal.valueOf(10 + rnd.nextInt(51), 1))
+                    .weight(BigDecimal.ONE)
+                    .comment(i % 3 == 0 ? "comment " + i : null)
+                    .student(student)
+                    .test(test)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<GradeDTO> toDTO() {
+        return grades.stream().map(GradeService::toDTO).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,56 @@
+package ch.notenverwaltung.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT work done by JwtAuthenticationFilter: verification of a token signed with the
+ * configured HS256 secret, once answered from the digest cache (verify) and once fully parsed
+ * and HMAC-checked (extractUsername).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider("benchmarkSecretKeyThatIsLongEnoughForHmacSha256", 86_400_000L, 10_000,
+                new SimpleMeterRegistry());
+        token = provider.generateToken("user1", List.of("ROLE_USER"));
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verify() {
+        return provider.verify(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return provider.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return provider.extractUsername(token);
+    }
+}
@@ -0,0 +1,53 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.dto.SemesterGradeRow;
+import ch.notenverwaltung.model.dto.StudentSemesterResultDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Semester report aggregation as done by GradeService.getSemesterGrades (grouping by id) and
+ * streamSemesterGrades (consecutive rows per student).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SemesterGradeAggregatorBenchmark {
+
+    @Param({"30", "300", "3000", "30000"})
+    public int students;
+
+    private final SemesterGradeAggregator aggregator = new SemesterGradeAggregator();
+    private List<SemesterGradeRow> rows;
+
+    @Setup
+    public void setUp() {
+        rows = SemesterGradeRows.generate(students, 42L);
+    }
+
+    @Benchmark
+    public List<StudentSemesterResultDTO> aggregateList() {
+        return aggregator.aggregate(rows);
+    }
+
+    @Benchmark
+    public void aggregateStream(Blackhole bh) {
+        aggregator.aggregate(rows.iterator(), bh::consume);
+    }
+}
@@ -0,0 +1,64 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.dto.SemesterGradeRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Synthetic semester report rows shaped like the seed data: every student has a few tests in
+ * each subject, values between 1 and 6 with one decimal, mostly weight 1.
+ */
+public final class SemesterGradeRows {
+
+    public static final int SUBJECTS = 8;
+    public static final int TESTS_PER_SUBJECT = 4;
+
+    private SemesterGradeRows() {
+    }
+
+    /**
+     * Rows ordered by student and subject, like GradeRepository.streamSemesterGrades returns them.
+     */
+    public static List<SemesterGradeRow> generate(int students, long seed) {
+        Random rnd = new Random(seed);
+        List<UUID> subjectIds = new ArrayList<>(SUBJECTS);
+        List<UUID> testIds = new ArrayList<>(SUBJECTS * TESTS_PER_SUBJECT);
+        for (int i = 0; i < SUBJECTS; i++) {
+            subjectIds.add(new UUID(rnd.nextLong(), rnd.nextLong()));
+        }
+        for (int i = 0; i < SUBJECTS * TESTS_PER_SUBJECT; i++) {
+            testIds.add(new UUID(rnd.nextLong(), rnd.nextLong()));
+        }
+        BigDecimal[] weights = {new BigDecimal("1.00"), new BigDecimal("1.00"), new BigDecimal("0.50"), new BigDecimal("2.00")};
+        LocalDate start = LocalDate.of(2025, 2, 17);
+
+        List<SemesterGradeRow> rows = new ArrayList<>(students * SUBJECTS * TESTS_PER_SUBJECT);
+        for (int s = 0; s < students; s++) {
+            UUID studentId = new UUID(rnd.nextLong(), rnd.nextLong());
+            for (int subj = 0; subj < SUBJECTS; subj++) {
+                for (int t = 0; t < TESTS_PER_SUBJECT; t++) {
+                    int test = subj * TESTS_PER_SUBJECT + t;
+                    rows.add(new SemesterGradeRow(
+                            new UUID(rnd.nextLong(), rnd.nextLong()),
+                            studentId,
+                            "First" + s,
+                            "Last" + s,
+                            subjectIds.get(subj),
+                            "Subject " + subj,
+                            testIds.get(test),
+                            "Test " + (t + 1),
+                            start.plusWeeks(test % 20),
+                            BigDecimal.valueOf(10 + rnd.nextInt(51), 1).setScale(2),
+                            weights[rnd.nextInt(weights.length)],
+                            t == 0 ? "Retake allowed" : null));
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,152 @@
+package ch.notenverwaltung.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the public authentication endpoints with token buckets per client IP and, for login and
+ * registration, per username, so that password guessing cannot keep the BCrypt pool busy.
+ * Rejected requests get 429 with Retry-After and are counted as auth.ratelimit.rejected{key=ip|username}.
+ * <p>
+ * The client IP is {@link HttpServletRequest#getRemoteAddr()}; behind a reverse proxy set
+ * {@code server.forward-headers-strategy} so that it reflects X-Forwarded-For.
+ */
+@Slf4j
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN = "/public/auth/login";
+    private static final String REGISTER = "/public/auth/register";
+    private static final String REFRESH = "/public/auth/refresh";
+    private static final Set<String> LIMITED_PATHS = Set.of(LOGIN, REGISTER, REFRESH);
+
+    // Login and registration bodies are tiny; larger ones are rejected, since a username that cannot
+    // be read would escape the per-username limit
+    private static final int MAX_INSPECTED_BODY = 8 * 1024;
+
+    private final boolean enabled;
+    private final StripedRateLimiter ipLimiter;
+    private final StripedRateLimiter usernameLimiter;
+    private final ObjectMapper objectMapper;
+    private final Counter ipRejections;
+    private final Counter usernameRejections;
+
+    public AuthRateLimitFilter(@Value("${spring.rate-limit.auth.enabled:true}") boolean enabled,
+                               @Value("${spring.rate-limit.auth.ip.capacity:20}") long ipCapacity,
+                               @Value("${spring.rate-limit.auth.ip.refill-per-minute:20}") long ipRefillPerMinute,
+                               @Value("${spring.rate-limit.auth.username.capacity:5}") long usernameCapacity,
+                               @Value("${spring.rate-limit.auth.username.refill-per-minute:5}") long usernameRefillPerMinute,
+                               @Value("${spring.rate-limit.auth.max-keys:100000}") int maxKeys,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ipLimiter = new StripedRateLimiter(ipCapacity, ipRefillPerMinute, maxKeys);
+        this.usernameLimiter = new StripedRateLimiter(usernameCapacity, usernameRefillPerMinute, maxKeys);
+        this.objectMapper = objectMapper;
+        this.ipRejections = Counter.builder("auth.ratelimit.rejected")
+                .description("Authentication requests rejected by the rate limiter")
+                .tag("key", "ip")
+                .register(meterRegistry);
+        this.usernameRejections = Counter.builder("auth.ratelimit.rejected")
+                .description("Authentication requests rejected by the rate limiter")
+                .tag("key", "username")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !LIMITED_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long waitNanos = ipLimiter.tryAcquire(request.getRemoteAddr());
+        if (waitNanos > 0) {
+            ipRejections.increment();
+            reject(request, response, waitNanos);
+            return;
+        }
+
+        String path = request.getServletPath();
+        if (!REFRESH.equals(path)) {
+            // Read whatever Content-Length says: a missing (chunked) or wrong header must not skip the check
+            byte[] body = request.getInputStream().readNBytes(MAX_INSPECTED_BODY + 1);
+            if (body.length > MAX_INSPECTED_BODY) {
+                write(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+                return;
+            }
+            request = new CachedBodyHttpServletRequest(request, body);
+            String username = username(body);
+            if (username != null) {
+                waitNanos = usernameLimiter.tryAcquire(path + ':' + username);
+                if (waitNanos > 0) {
+                    usernameRejections.increment();
+                    reject(request, response, waitNanos);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String username(byte[] body) {
+        try {
+            // Any scalar, since Jackson also binds {"username": 123} to the String "123"
+            JsonNode username = objectMapper.readTree(body).get("username");
+            return username != null && username.isValueNode() && !username.isNull() && StringUtils.hasText(username.asText())
+                    ? username.asText().trim().toLowerCase(Locale.ROOT)
+                    : null;
+        } catch (IOException e) {
+            // Malformed JSON is left to the controller
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        log.debug("Rate limit exceeded for {} from {}", request.getServletPath(), request.getRemoteAddr());
+        // Retry-After in whole seconds, at least 1
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        write(request, response, HttpStatus.TOO_MANY_REQUESTS, "Too many authentication attempts, please try again later");
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", OffsetDateTime.now().toString());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("path", request.getRequestURI());
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,44 @@
+package ch.notenverwaltung.config;
+
+import ch.notenverwaltung.model.entity.User;
+import lombok.Getter;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Principal of JWT-authenticated requests. Inject with {@code @AuthenticationPrincipal} to get the
+ * caller's id without looking the user up by username.
+ */
+@Getter
+public final class AuthenticatedUser implements AuthenticatedPrincipal {
+
+    private final UUID userId;
+    private final String username;
+    private final List<String> roles;
+
+    public AuthenticatedUser(UUID userId, String username, List<String> roles) {
+        this.userId = userId;
+        this.username = username;
+        this.roles = List.copyOf(roles);
+    }
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRoles());
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public boolean isAdmin() {
+        return roles.contains("ROLE_ADMIN");
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -1,12 +1,20 @@
 package ch.notenverwaltung.config;
 
+import ch.notenverwaltung.model.dto.UserAuthState;
+import ch.notenverwaltung.model.entity.User;
 import ch.notenverwaltung.service.JwtTokenProvider;
+import ch.notenverwaltung.service.TokenRevocationService;
+import ch.notenverwaltung.service.UserAuthStateCache;
+import ch.notenverwaltung.service.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,16 +24,28 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final UserAuthStateCache userAuthStateCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final boolean statelessAuth;
 
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, @Lazy UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
+                                   @Lazy UserDetailsService userDetailsService,
+                                   UserAuthStateCache userAuthStateCache,
+                                   TokenRevocationService tokenRevocationService,
+                                   @Value("${spring.jwt.stateless-auth:true}") boolean statelessAuth) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.userAuthStateCache = userAuthStateCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.statelessAuth = statelessAuth;
     }
 
     @Override
@@ -34,15 +54,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.extractUsername(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            Optional<VerifiedToken> token = StringUtils.hasText(jwt) ? jwtTokenProvider.verify(jwt) : Optional.empty();
+            // In-memory revocation list, no database round trip
+            token = token.filter(t -> !tokenRevocationService.isRevoked(t));
+            if (token.isPresent()) {
+                VerifiedToken verified = token.get();
+                UsernamePasswordAuthenticationToken authentication = statelessAuth
+                        && verified.getUserId() != null
+                        && verified.getRoleVersion() != null
+                        && verified.getRoles() != null
+                        ? fromClaims(verified)
+                        : fromDatabase(verified.getSubject());
+                if (authentication != null) {
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -51,6 +77,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Principal built from the verified claims. The token is only accepted while the user it was
+     * issued to exists (same id, not just the same username), is enabled and still has the role
+     * version the token was issued with.
+     */
+    private UsernamePasswordAuthenticationToken fromClaims(VerifiedToken token) {
+        String username = token.getSubject();
+        Optional<UserAuthState> state = userAuthStateCache.get(username);
+        if (state.isEmpty() || !token.getUserId().equals(state.get().getId()) || !state.get().isEnabled()
+                || state.get().getRoleVersion() != token.getRoleVersion()) {
+            logger.debug("Rejecting token of '" + username + "': user missing or re-created, disabled or roles changed");
+            return null;
+        }
+        AuthenticatedUser principal = new AuthenticatedUser(token.getUserId(), username, token.getRoles());
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities(principal));
+    }
+
+    // Tokens issued before user ids and role versions were added (or with stateless-auth disabled)
+    private UsernamePasswordAuthenticationToken fromDatabase(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        AuthenticatedUser principal = AuthenticatedUser.of((User) userDetails);
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities(principal));
+    }
+
+    private static List<GrantedAuthority> authorities(AuthenticatedUser principal) {
+        return principal.getRoles().stream()
+                .map(r -> (GrantedAuthority) new SimpleGrantedAuthority(r))
+                .toList();
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,91 @@
+package ch.notenverwaltung.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per key, split over lock stripes so that unrelated keys never contend.
+ * Each stripe holds at most {@code maxKeys / stripes} buckets in LRU order; an evicted bucket
+ * only forgets its history, which at worst grants a client a fresh (full) bucket.
+ */
+public class StripedRateLimiter {
+
+    private static final int STRIPES = 64; // power of two
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final LongSupplier clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public StripedRateLimiter(long capacity, long refillPerMinute, int maxKeys) {
+        this(capacity, refillPerMinute, maxKeys, System::nanoTime);
+    }
+
+    StripedRateLimiter(long capacity, long refillPerMinute, int maxKeys, LongSupplier clock) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.clock = clock;
+        int perStripe = Math.max(1, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Takes one token for {@code key}. Returns 0 if it was granted, otherwise the number of
+     * nanoseconds until the next token becomes available.
+     */
+    public long tryAcquire(String key) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (STRIPES - 1)];
+        long now = clock.getAsLong();
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedAt) * tokensPerNano);
+                bucket.updatedAt = now;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets;
+
+        private Stripe(int maxEntries) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+    }
+}
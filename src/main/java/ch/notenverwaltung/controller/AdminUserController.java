@@ -3,7 +3,10 @@ package ch.notenverwaltung.controller;
 import ch.notenverwaltung.model.dto.AdminCreateUserRequest;
 import ch.notenverwaltung.model.dto.ChangePasswordRequest;
 import ch.notenverwaltung.model.dto.RoleRequest;
+import ch.notenverwaltung.model.dto.UserBulkResponseDTO;
+import ch.notenverwaltung.model.dto.UserSummaryDTO;
 import ch.notenverwaltung.model.entity.User;
+import ch.notenverwaltung.service.UserProvisioningService;
 import ch.notenverwaltung.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,6 +23,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 
@@ -31,6 +35,7 @@ import java.util.List;
 public class AdminUserController {
 
     private final UserService userService;
+    private final UserProvisioningService userProvisioningService;
 
     @GetMapping(produces = "application/json")
     @Operation(
@@ -58,6 +63,19 @@ public class AdminUserController {
         return ResponseEntity.ok(userService.getActiveUsers(pageable));
     }
 
+    @GetMapping(path = "/search", produces = "application/json")
+    @Operation(
+            summary = "Search users (typeahead, paged)",
+            description = "Case-insensitive substring search over username, first name and last name. Backed by trigram indexes, so terms of three or more characters stay fast on large user tables.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Page of matching users returned",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserSummaryDTO.class)))
+            }
+    )
+    public ResponseEntity<Page<UserSummaryDTO>> searchUsers(@RequestParam("q") @NotBlank String q, Pageable pageable) {
+        return ResponseEntity.ok(userService.searchUsers(q, pageable));
+    }
+
     @PostMapping(consumes = "application/json", produces = "application/json")
     @Operation(
             summary = "Create a new user",
@@ -89,6 +107,34 @@ public class AdminUserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    @PostMapping(path = "/bulk", consumes = "application/json", produces = "application/json")
+    @Operation(
+            summary = "Create many users (JSON roster)",
+            description = "Creates one user per element, with the same fields and defaults as POST /admin/users. Invalid rows and usernames or emails that already exist (or repeat within the roster) are rejected individually; all other users are created together. Returns a result per row.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Per-row results returned",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserBulkResponseDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Roster too large", content = @Content)
+            }
+    )
+    public ResponseEntity<UserBulkResponseDTO> createUsers(@RequestBody List<AdminCreateUserRequest> roster) {
+        return ResponseEntity.ok(userProvisioningService.provision(roster));
+    }
+
+    @PostMapping(path = "/bulk", consumes = "text/csv", produces = "application/json")
+    @Operation(
+            summary = "Create many users (CSV roster)",
+            description = "Like the JSON variant, for a UTF-8 CSV body with the header username,password and the optional columns first_name, last_name, email, date_of_birth (YYYY-MM-DD) and roles (separated by ';'). Results carry the CSV line number.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Per-row results returned",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserBulkResponseDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Missing columns, malformed CSV or roster too large", content = @Content)
+            }
+    )
+    public ResponseEntity<UserBulkResponseDTO> createUsersFromCsv(InputStream roster) {
+        return ResponseEntity.ok(userProvisioningService.provisionCsv(roster));
+    }
+
     @PutMapping(path = "/{username}/password", consumes = "application/json")
     @Operation(
             summary = "Change a user's password",
@@ -108,7 +154,7 @@ public class AdminUserController {
     @PutMapping(path = "/{username}/active")
     @Operation(
             summary = "Set user active flag",
-            description = "Sets the active flag for the specified user to true or false via query parameter 'active'.",
+            description = "Sets the active flag for the specified user to true or false via query parameter 'active'. Deactivating a user also revokes their tokens.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "User updated",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
@@ -121,6 +167,20 @@ public class AdminUserController {
         return ResponseEntity.ok(updated);
     }
 
+    @PostMapping(path = "/{username}/sign-out")
+    @Operation(
+            summary = "Sign a user out everywhere",
+            description = "Revokes all access tokens issued to the user so far and all of their refresh tokens. The user can sign in again afterwards; use the active flag to lock them out.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Tokens revoked", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+            }
+    )
+    public ResponseEntity<Void> signOut(@PathVariable("username") String username) {
+        userService.signOut(username);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping(path = "/{username}/roles", consumes = "application/json", produces = "application/json")
     @Operation(
             summary = "Grant a role to a user",
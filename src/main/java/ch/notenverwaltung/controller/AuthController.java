@@ -2,9 +2,12 @@ package ch.notenverwaltung.controller;
 
 import ch.notenverwaltung.model.dto.AuthRequestDTO;
 import ch.notenverwaltung.model.dto.AuthResponseDTO;
+import ch.notenverwaltung.model.dto.RefreshRequestDTO;
 import ch.notenverwaltung.model.dto.UserRegistrationDTO;
 import ch.notenverwaltung.model.entity.User;
 import ch.notenverwaltung.service.JwtTokenProvider;
+import ch.notenverwaltung.service.RefreshTokenService;
+import ch.notenverwaltung.service.TokenRevocationService;
 import ch.notenverwaltung.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,15 +17,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -38,11 +42,13 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtTokenProvider;
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping(value = "/login", consumes = "application/json", produces = "application/json")
     @Operation(
             summary = "Login and retrieve JWT",
-            description = "Authenticates a user with username and password and returns a JWT access token. This endpoint is public and does not require a token.",
+            description = "Authenticates a user with username and password and returns a short-lived JWT access token plus a refresh token for /public/auth/refresh. This endpoint is public and does not require a token.",
             security = {},
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successful authentication",
@@ -60,10 +66,10 @@ public class AuthController {
             );
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String jwt = jwtTokenProvider.generateToken(userDetails);
+            User user = (User) authentication.getPrincipal();
+            String jwt = jwtTokenProvider.generateToken(user);
 
-            return ResponseEntity.ok(new AuthResponseDTO(jwt));
+            return ResponseEntity.ok(new AuthResponseDTO(jwt, refreshTokenService.issue(user)));
         } catch (Exception e) {
             log.debug("Login failed for username: {}", loginRequest.getUsername());
             log.debug("Error message: {}", e.getMessage());
@@ -74,7 +80,7 @@ public class AuthController {
     @PostMapping(value = "/register", consumes = "application/json", produces = "application/json")
     @Operation(
             summary = "Register a new user",
-            description = "Creates a new user account with default role ROLE_USER and returns a JWT access token. This endpoint is public and does not require a token.",
+            description = "Creates a new user account with default role ROLE_USER and returns a JWT access token and a refresh token. This endpoint is public and does not require a token.",
             security = {},
             responses = {
                     @ApiResponse(responseCode = "201", description = "User created",
@@ -97,9 +103,46 @@ public class AuthController {
                 registrationDTO.getDateOfBirth()
         );
 
-        String jwt = jwtTokenProvider.generateToken(user.getUsername(), user.getRoles());
+        String jwt = jwtTokenProvider.generateToken(user);
 
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(new AuthResponseDTO(jwt));
+                .body(new AuthResponseDTO(jwt, refreshTokenService.issue(user)));
+    }
+
+    @PostMapping(value = "/refresh", consumes = "application/json", produces = "application/json")
+    @Operation(
+            summary = "Refresh the access token",
+            description = "Exchanges a refresh token for a new access token and a new refresh token; the presented refresh token becomes invalid. Reusing an already exchanged refresh token revokes all tokens derived from the same login. No password check is done. This endpoint is public and does not require a token.",
+            security = {},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Tokens refreshed",
+                            content = @Content(schema = @Schema(implementation = AuthResponseDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Refresh token unknown, expired, revoked or reused")
+            }
+    )
+    public ResponseEntity<AuthResponseDTO> refresh(@Valid @RequestBody RefreshRequestDTO request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        String jwt = jwtTokenProvider.generateToken(rotation.user());
+        return ResponseEntity.ok(new AuthResponseDTO(jwt, rotation.refreshToken()));
+    }
+
+    @PostMapping(value = "/logout")
+    @Operation(
+            summary = "Logout",
+            description = "Revokes the access token sent in the Authorization header and, if given in the body, the refresh token together with all refresh tokens derived from the same login. Invalid or missing tokens are ignored, so logging out twice is harmless. This endpoint is public and does not require a token.",
+            security = {},
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Logged out", content = @Content)
+            }
+    )
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                       @Valid @RequestBody(required = false) RefreshRequestDTO request) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            jwtTokenProvider.verify(authorization.substring(7)).ifPresent(tokenRevocationService::revokeToken);
+        }
+        if (request != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,53 @@
+package ch.notenverwaltung.controller;
+
+import ch.notenverwaltung.model.dto.GradeAggregateCheckDTO;
+import ch.notenverwaltung.service.GradeAggregateService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/grade-aggregates")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Grade Aggregates", description = "Admin-only maintenance of the per-student, per-subject grade sums")
+public class GradeAggregateController {
+
+    private final GradeAggregateService gradeAggregateService;
+
+    @PostMapping(path = "/rebuild", produces = "application/json")
+    @Operation(
+            summary = "Rebuild grade aggregates",
+            description = "Recomputes all per-student, per-subject weighted sums from the grades table. Needed after grades were written outside the API (e.g. direct SQL)."
+    )
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("aggregateRows", gradeAggregateService.rebuildAll());
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping(path = "/check", produces = "application/json")
+    @Operation(
+            summary = "Check grade aggregates",
+            description = "Compares the stored aggregates with a full recomputation from grades and lists every differing student/semester-subject pair.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Check result returned",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeAggregateCheckDTO.class)))
+            }
+    )
+    public ResponseEntity<GradeAggregateCheckDTO> check() {
+        return ResponseEntity.ok(gradeAggregateService.check());
+    }
+}
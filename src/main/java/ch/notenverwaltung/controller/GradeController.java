@@ -1,24 +1,35 @@
 package ch.notenverwaltung.controller;
 
+import ch.notenverwaltung.config.AuthenticatedUser;
 import ch.notenverwaltung.model.dto.GradeDTO;
+import ch.notenverwaltung.model.dto.GradeIngestStatusDTO;
+import ch.notenverwaltung.service.GradeIngestionService;
 import ch.notenverwaltung.service.GradeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -28,8 +39,12 @@ import java.util.UUID;
 @Tag(name = "Grades", description = "Endpoints to manage grades")
 public class GradeController {
 
+    private static final String KEYSET_DESCRIPTION = "Use keyset (cursor) paging instead of offset paging: the response carries nextCursor, only 'size' of the pageable is used, results are ordered by createdOn desc and no total count is computed (optional)";
+    private static final String CURSOR_DESCRIPTION = "Opaque nextCursor of the previous keyset page; implies keyset=true (optional)";
+
     private final GradeService gradeService;
-    private final ch.notenverwaltung.repository.UserRepository userRepository;
+    private final GradeIngestionService gradeIngestionService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','USER')")
@@ -41,17 +56,22 @@ public class GradeController {
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeDTO.class)))
             }
     )
-    public ResponseEntity<Page<GradeDTO>> getAll(
+    public ResponseEntity<?> getAll(
             Pageable pageable,
             @Parameter(description = "Filter by studentId (ADMIN only, optional)") @RequestParam(value = "studentId", required = false) UUID studentId,
             @Parameter(description = "Filter by testId (optional)") @RequestParam(value = "testId", required = false) UUID testId,
             @Parameter(description = "Minimum grade value (optional)") @RequestParam(value = "valueMin", required = false) BigDecimal valueMin,
             @Parameter(description = "Maximum grade value (optional)") @RequestParam(value = "valueMax", required = false) BigDecimal valueMax,
-            Authentication auth
+            @Parameter(description = KEYSET_DESCRIPTION) @RequestParam(value = "keyset", defaultValue = "false") boolean keyset,
+            @Parameter(description = CURSOR_DESCRIPTION) @RequestParam(value = "cursor", required = false) String cursor,
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
-        boolean isAdmin = auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        boolean isAdmin = user.isAdmin();
         UUID effectiveStudentId = isAdmin ? studentId : null;
-        Page<GradeDTO> page = gradeService.find(pageable, effectiveStudentId, testId, valueMin, valueMax, isAdmin, auth.getName());
+        if (keyset || cursor != null) {
+            return ResponseEntity.ok(gradeService.findByCursor(cursor, pageable.getPageSize(), effectiveStudentId, testId, valueMin, valueMax, isAdmin, user.getUserId()));
+        }
+        Page<GradeDTO> page = gradeService.find(pageable, effectiveStudentId, testId, valueMin, valueMax, isAdmin, user.getUserId());
         return ResponseEntity.ok(page);
     }
 
@@ -65,16 +85,21 @@ public class GradeController {
                             content = @Content(mediaType = "application/json"))
             }
     )
-    public ResponseEntity<Page<ch.notenverwaltung.model.dto.GradeViewDTO>> getView(
+    public ResponseEntity<?> getView(
             Pageable pageable,
             @Parameter(description = "Filter by student username (contains, optional)") @RequestParam(value = "studentUsername", required = false) String studentUsername,
             @Parameter(description = "Filter by test name (contains, optional)") @RequestParam(value = "testName", required = false) String testName,
             @Parameter(description = "Minimum grade value (optional)") @RequestParam(value = "valueMin", required = false) BigDecimal valueMin,
             @Parameter(description = "Maximum grade value (optional)") @RequestParam(value = "valueMax", required = false) BigDecimal valueMax,
-            Authentication auth
+            @Parameter(description = KEYSET_DESCRIPTION) @RequestParam(value = "keyset", defaultValue = "false") boolean keyset,
+            @Parameter(description = CURSOR_DESCRIPTION) @RequestParam(value = "cursor", required = false) String cursor,
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
-        boolean isAdmin = auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-        Page<ch.notenverwaltung.model.dto.GradeViewDTO> page = gradeService.findView(pageable, studentUsername, testName, valueMin, valueMax, isAdmin, auth.getName());
+        boolean isAdmin = user.isAdmin();
+        if (keyset || cursor != null) {
+            return ResponseEntity.ok(gradeService.findViewByCursor(cursor, pageable.getPageSize(), studentUsername, testName, valueMin, valueMax, isAdmin, user.getUserId()));
+        }
+        Page<ch.notenverwaltung.model.dto.GradeViewDTO> page = gradeService.findView(pageable, studentUsername, testName, valueMin, valueMax, isAdmin, user.getUserId());
         return ResponseEntity.ok(page);
     }
 
@@ -88,11 +113,16 @@ public class GradeController {
                             content = @Content(mediaType = "application/json"))
             }
     )
-    public ResponseEntity<Page<ch.notenverwaltung.model.dto.GradeViewDTO>> getOwnView(
+    public ResponseEntity<?> getOwnView(
             Pageable pageable,
-            Authentication auth
+            @Parameter(description = KEYSET_DESCRIPTION) @RequestParam(value = "keyset", defaultValue = "false") boolean keyset,
+            @Parameter(description = CURSOR_DESCRIPTION) @RequestParam(value = "cursor", required = false) String cursor,
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
-        Page<ch.notenverwaltung.model.dto.GradeViewDTO> page = gradeService.findView(pageable, null, null, null, null, false, auth.getName());
+        if (keyset || cursor != null) {
+            return ResponseEntity.ok(gradeService.findViewByCursor(cursor, pageable.getPageSize(), null, null, null, null, false, user.getUserId()));
+        }
+        Page<ch.notenverwaltung.model.dto.GradeViewDTO> page = gradeService.findView(pageable, null, null, null, null, false, user.getUserId());
         return ResponseEntity.ok(page);
     }
 
@@ -104,12 +134,11 @@ public class GradeController {
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeDTO.class))),
                     @ApiResponse(responseCode = "404", description = "Grade not found", content = @Content)
             })
-    public ResponseEntity<GradeDTO> getById(@PathVariable UUID id, Authentication auth) {
+    public ResponseEntity<GradeDTO> getById(@PathVariable UUID id, @AuthenticationPrincipal AuthenticatedUser user) {
         GradeDTO dto = gradeService.getById(id);
-        boolean isAdmin = auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        boolean isAdmin = user.isAdmin();
         if (!isAdmin) {
-            UUID userId = getUserIdFromPrincipal(auth);
-            if (!dto.getStudentId().equals(userId)) {
+            if (!dto.getStudentId().equals(user.getUserId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
         }
@@ -119,20 +148,50 @@ public class GradeController {
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','USER')")
     @Operation(summary = "Create grade",
-            description = "Admins can create grades for any student. Users can only create grades for themselves; any provided studentId will be ignored and replaced with the current user's id.",
+            description = "Admins can create grades for any student. Users can only create grades for themselves; any provided studentId will be ignored and replaced with the current user's id. A student has at most one grade per test. If the student already has a grade for the test, an admin's request overwrites its value, weight and comment, while a user's request is rejected with 409 and leaves the existing grade unchanged.",
             responses = {
                     @ApiResponse(responseCode = "201", description = "Grade created",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeDTO.class))),
-                    @ApiResponse(responseCode = "400", description = "Validation error", content = @Content)
+                    @ApiResponse(responseCode = "200", description = "Existing grade of the student for the test overwritten (admins only)",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeDTO.class))),
+                    @ApiResponse(responseCode = "202", description = "Grade queued (only if spring.grades.ingest.enabled); follow it with GET /grades/ingest/{trackingId}",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeIngestStatusDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Validation error", content = @Content),
+                    @ApiResponse(responseCode = "409", description = "The student already has a grade for the test (users only)", content = @Content),
+                    @ApiResponse(responseCode = "503", description = "Ingestion queue full, retry after the Retry-After header", content = @Content)
             })
-    public ResponseEntity<GradeDTO> create(@RequestBody GradeDTO dto, Authentication auth) {
-        boolean isAdmin = auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    public ResponseEntity<?> create(@RequestBody GradeDTO dto, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean isAdmin = user.isAdmin();
         if (!isAdmin) {
-            UUID currentUserId = getUserIdFromPrincipal(auth);
-            dto.setStudentId(currentUserId);
+            dto.setStudentId(user.getUserId());
         }
-        GradeDTO created = gradeService.create(dto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        if (gradeIngestionService.isEnabled()) {
+            GradeIngestStatusDTO queued = gradeIngestionService.submit(dto, user.getUserId(), isAdmin);
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                            .path("/ingest/{trackingId}")
+                            .buildAndExpand(queued.getTrackingId())
+                            .toUri())
+                    .body(queued);
+        }
+        GradeService.Upserted saved = gradeService.upsert(dto, isAdmin);
+        return ResponseEntity.status(saved.created() ? HttpStatus.CREATED : HttpStatus.OK).body(saved.grade());
+    }
+
+    @GetMapping("/ingest/{trackingId}")
+    @PreAuthorize("hasAnyRole('ADMIN','USER')")
+    @Operation(summary = "Status of a queued grade",
+            description = "Returns whether a grade accepted with 202 by POST /grades is still queued, saved (with its id) or failed (with the reason). Statuses are kept for spring.grades.ingest.status-retention after completion. Users can only see their own submissions.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Status returned",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeIngestStatusDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Unknown or expired tracking id", content = @Content)
+            })
+    public ResponseEntity<GradeIngestStatusDTO> getIngestStatus(@Parameter(description = "Tracking id returned by POST /grades") @PathVariable UUID trackingId,
+                                                                @AuthenticationPrincipal AuthenticatedUser user) {
+        return gradeIngestionService.getStatus(trackingId, user.isAdmin() ? null : user.getUserId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}")
@@ -156,12 +215,11 @@ public class GradeController {
                     @ApiResponse(responseCode = "403", description = "Forbidden for non-owners", content = @Content),
                     @ApiResponse(responseCode = "404", description = "Not found", content = @Content)
             })
-    public ResponseEntity<Void> delete(@PathVariable UUID id, Authentication auth) {
-        boolean isAdmin = auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    public ResponseEntity<Void> delete(@PathVariable UUID id, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean isAdmin = user.isAdmin();
         if (!isAdmin) {
             GradeDTO dto = gradeService.getById(id);
-            UUID currentUserId = getUserIdFromPrincipal(auth);
-            if (!dto.getStudentId().equals(currentUserId)) {
+            if (!dto.getStudentId().equals(user.getUserId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
         }
@@ -183,36 +241,55 @@ public class GradeController {
     public ResponseEntity<Page<GradeDTO>> getGradesForUser(
             @PathVariable UUID userId,
             Pageable pageable,
-            Authentication auth
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
-        boolean isAdmin = auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        boolean isAdmin = user.isAdmin();
         if (!isAdmin) {
-            UUID currentUserId = getUserIdFromPrincipal(auth);
-            if (!currentUserId.equals(userId)) {
+            if (!user.getUserId().equals(userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
         }
-        Page<GradeDTO> page = gradeService.find(pageable, userId, null, null, null, true, auth.getName());
+        Page<GradeDTO> page = gradeService.find(pageable, userId, null, null, null, true, user.getUserId());
         return ResponseEntity.ok(page);
     }
 
-    private UUID getUserIdFromPrincipal(Authentication auth) {
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new jakarta.persistence.EntityNotFoundException("User not found: " + username))
-                .getId();
-    }
-
     @GetMapping("/semester")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
             summary = "Get grades for a semester (optionally for one student)",
-            description = "Returns, for the given semester, for each student (or a specific student if studentId is provided): all individual grades per subject, the calculated weighted grade per subject, and the overall weighted average.")
+            description = "Returns, for the given semester, for each student (or a specific student if studentId is provided): all individual grades per subject, the calculated weighted grade per subject, and the overall weighted average. With summary=true only the averages are returned (grade lists stay empty); they are computed by the database.")
     public ResponseEntity<java.util.List<ch.notenverwaltung.model.dto.StudentSemesterResultDTO>> getSemesterGrades(
             @RequestParam("semesterId") UUID semesterId,
-            @RequestParam(value = "studentId", required = false) UUID studentId
+            @RequestParam(value = "studentId", required = false) UUID studentId,
+            @Parameter(description = "Return only subject and overall averages (optional)") @RequestParam(value = "summary", defaultValue = "false") boolean summary
     ) {
-        java.util.List<ch.notenverwaltung.model.dto.StudentSemesterResultDTO> data = gradeService.getSemesterGrades(semesterId, studentId);
+        java.util.List<ch.notenverwaltung.model.dto.StudentSemesterResultDTO> data = summary
+                ? gradeService.getSemesterSummary(semesterId, studentId)
+                : gradeService.getSemesterGrades(semesterId, studentId);
         return ResponseEntity.ok(data);
     }
+
+    @GetMapping(value = "/semester/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Stream grades for a semester as NDJSON (optionally for one student)",
+            description = "Same content as /grades/semester, written as newline-delimited JSON with one StudentSemesterResultDTO per line. Each student is sent as soon as it is complete, so memory stays constant and the first line arrives before the whole semester is read.")
+    public void streamSemesterGrades(
+            @RequestParam("semesterId") UUID semesterId,
+            @RequestParam(value = "studentId", required = false) UUID studentId,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        gradeService.streamSemesterGrades(semesterId, studentId, dto -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
 }
@@ -0,0 +1,92 @@
+package ch.notenverwaltung.controller;
+
+import ch.notenverwaltung.model.dto.GradeImportDTO;
+import ch.notenverwaltung.service.GradeImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/admin/grade-imports")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Grade Import", description = "Admin-only bulk import of grades from CSV")
+public class GradeImportController {
+
+    private final GradeImportService gradeImportService;
+
+    @PostMapping(consumes = "text/csv", produces = "application/json")
+    @Operation(
+            summary = "Import grades from CSV",
+            description = "Send the CSV as request body (Content-Type: text/csv, UTF-8) with the header username,test_id,value,weight and an optional comment column. The file is processed while it is uploaded and all valid lines are saved in one transaction; invalid lines are skipped and listed in the error file. Running imports can be followed with GET /admin/grade-imports.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeImportDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Header missing required columns or malformed CSV", content = @Content)
+            }
+    )
+    public ResponseEntity<GradeImportDTO> importCsv(InputStream csv) {
+        return ResponseEntity.ok(gradeImportService.importCsv(csv));
+    }
+
+    @GetMapping(produces = "application/json")
+    @Operation(
+            summary = "List recent imports",
+            description = "Returns running and recently finished imports with their progress, newest first."
+    )
+    public ResponseEntity<List<GradeImportDTO>> list() {
+        return ResponseEntity.ok(gradeImportService.list());
+    }
+
+    @GetMapping(path = "/{id}", produces = "application/json")
+    @Operation(
+            summary = "Get import progress",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import found",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeImportDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Unknown or expired import", content = @Content)
+            }
+    )
+    public ResponseEntity<GradeImportDTO> get(@Parameter(description = "Import UUID") @PathVariable UUID id) {
+        return gradeImportService.get(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(path = "/{id}/errors", produces = "text/csv")
+    @Operation(
+            summary = "Download the error file of an import",
+            description = "CSV with the line number and reason of every rejected line. Available once the import has finished.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Error file returned"),
+                    @ApiResponse(responseCode = "404", description = "Unknown, expired or still running import", content = @Content)
+            }
+    )
+    public ResponseEntity<Resource> errors(@Parameter(description = "Import UUID") @PathVariable UUID id) {
+        return gradeImportService.getErrorFile(id)
+                .map(path -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"grade-import-" + id + "-errors.csv\"")
+                        .contentType(MediaType.parseMediaType("text/csv"))
+                        .body((Resource) new FileSystemResource(path)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,6 +1,9 @@
 package ch.notenverwaltung.controller;
 
+import ch.notenverwaltung.model.dto.GradeBatchItemDTO;
+import ch.notenverwaltung.model.dto.GradeBatchResponseDTO;
 import ch.notenverwaltung.model.dto.TestDTO;
+import ch.notenverwaltung.service.GradeService;
 import ch.notenverwaltung.service.TestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,6 +20,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -26,6 +30,7 @@ import java.util.UUID;
 public class TestController {
 
     private final TestService testService;
+    private final GradeService gradeService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
@@ -103,4 +108,21 @@ public class TestController {
         testService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping(path = "/{id}/grades:batch", consumes = "application/json", produces = "application/json")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Enter the grades of a test in one request",
+            description = "Creates one grade per row (studentId, value, weight, comment) for the test in a single transaction. A student who already has a grade for the test gets it overwritten (status UPDATED). Empty rows, rows with missing fields, a value or weight outside NUMERIC(5,2) or a comment longer than 255 characters, unknown students or a student repeated within the batch are rejected individually and reported with their index; all other rows are saved. At most spring.grades.batch.max-rows rows per request. Only ADMINs can create grades.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Per-row results returned",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = GradeBatchResponseDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "More rows than spring.grades.batch.max-rows", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "Test not found", content = @Content)
+            }
+    )
+    public ResponseEntity<GradeBatchResponseDTO> createGrades(@Parameter(description = "Test UUID") @PathVariable UUID id,
+                                                              @RequestBody List<GradeBatchItemDTO> items) {
+        return ResponseEntity.ok(gradeService.createBatch(id, items));
+    }
 }
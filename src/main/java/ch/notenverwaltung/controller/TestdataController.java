@@ -1,15 +1,21 @@
 package ch.notenverwaltung.controller;
 
+import ch.notenverwaltung.model.dto.SyntheticDataRequest;
 import ch.notenverwaltung.model.entity.*;
 import ch.notenverwaltung.repository.*;
+import ch.notenverwaltung.service.GradeAggregateService;
+import ch.notenverwaltung.service.SemesterReportCache;
+import ch.notenverwaltung.service.SyntheticDataGenerator;
 import ch.notenverwaltung.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -31,6 +37,9 @@ public class TestdataController {
     private final SchoolClassRepository schoolClassRepository;
     private final TestRepository testRepository;
     private final GradeRepository gradeRepository;
+    private final GradeAggregateService gradeAggregateService;
+    private final SemesterReportCache semesterReportCache;
+    private final SyntheticDataGenerator syntheticDataGenerator;
 
     @PostMapping("/setup")
     @PreAuthorize("hasRole('ADMIN')")
@@ -84,10 +93,8 @@ public class TestdataController {
         String[] subjectNames = {"Mathematics", "Physics", "Chemistry", "Biology"};
         List<Subject> subjects = new ArrayList<>();
         for (String sname : subjectNames) {
-            Subject s = subjectRepository.existsByName(sname)
-                    ? subjectRepository.findAll().stream().filter(x -> x.getName().equals(sname)).findFirst().orElse(null)
-                    : subjectRepository.save(Subject.builder().name(sname).build());
-            if (s != null) subjects.add(s);
+            subjects.add(subjectRepository.findByName(sname)
+                    .orElseGet(() -> subjectRepository.save(Subject.builder().name(sname).build())));
         }
         summary.put("subjects", subjects.stream().map(Subject::getName).toList());
 
@@ -99,13 +106,8 @@ public class TestdataController {
             String semName = "SEM-" + i + "-" + base.getYear();
             LocalDate start = base.plusMonths((i - 1) * 3L);
             LocalDate end = start.plusMonths(3).minusDays(1);
-            Semester sem;
-            if (semesterRepository.existsByName(semName)) {
-                sem = semesterRepository.findAll().stream().filter(x -> x.getName().equals(semName)).findFirst().orElse(null);
-            } else {
-                sem = semesterRepository.save(Semester.builder().name(semName).startDate(start).endDate(end).build());
-            }
-            if (sem != null) semesters.add(sem);
+            semesters.add(semesterRepository.findByName(semName)
+                    .orElseGet(() -> semesterRepository.save(Semester.builder().name(semName).startDate(start).endDate(end).build())));
         }
         summary.put("semesters", semesters.stream().map(Semester::getName).toList());
 
@@ -113,26 +115,15 @@ public class TestdataController {
         List<SemesterSubject> semesterSubjects = new ArrayList<>();
         for (Semester sem : semesters) {
             for (Subject sub : subjects) {
-                SemesterSubject ss;
-                boolean exists = semesterSubjectRepository.existsBySemester_IdAndSubject_Id(sem.getId(), sub.getId());
-                if (exists) {
-                    ss = semesterSubjectRepository.findAll().stream()
-                            .filter(x -> x.getSemester().getId().equals(sem.getId()) && x.getSubject().getId().equals(sub.getId()))
-                            .findFirst().orElse(null);
-                } else {
-                    ss = semesterSubjectRepository.save(SemesterSubject.builder().semester(sem).subject(sub).build());
-                }
-                if (ss != null) semesterSubjects.add(ss);
+                semesterSubjects.add(semesterSubjectRepository.findBySemester_IdAndSubject_Id(sem.getId(), sub.getId())
+                        .orElseGet(() -> semesterSubjectRepository.save(SemesterSubject.builder().semester(sem).subject(sub).build())));
             }
         }
         summary.put("semesterSubjectsCount", semesterSubjects.size()); // should be 16
 
         List<SchoolClass> classes = new ArrayList<>();
         for (SemesterSubject ss : semesterSubjects) {
-            Optional<SchoolClass> maybeExisting = schoolClassRepository.findAll().stream()
-                    .filter(c -> c.getSemesterSubject().getId().equals(ss.getId()))
-                    .findFirst();
-            SchoolClass sc = maybeExisting.orElseGet(() -> {
+            SchoolClass sc = schoolClassRepository.findFirstBySemesterSubject_Id(ss.getId()).orElseGet(() -> {
                 String className = ss.getSemester().getName() + " - " + ss.getSubject().getName();
                 return schoolClassRepository.save(SchoolClass.builder()
                         .semesterSubject(ss)
@@ -146,9 +137,7 @@ public class TestdataController {
         // 6) Two tests per created class
         List<TestEntity> tests = new ArrayList<>();
         for (SchoolClass sc : classes) {
-            List<TestEntity> existing = testRepository.findAll().stream()
-                    .filter(t -> t.getSchoolClass().getId().equals(sc.getId()))
-                    .toList();
+            List<TestEntity> existing = testRepository.findBySchoolClass_Id(sc.getId());
             int toCreate = Math.max(0, 2 - existing.size());
             tests.addAll(existing);
             for (int i = 1; i <= toCreate; i++) {
@@ -173,12 +162,14 @@ public class TestdataController {
 
         // 7) A grade for all 10 users for all the tests
         int gradesCreated = 0;
+        // Existing (student, test) pairs, loaded once; a student has at most one grade per test
+        Set<List<UUID>> graded = new HashSet<>();
+        for (Object[] pair : gradeRepository.findStudentAndTestIdsByTestIdIn(tests.stream().map(TestEntity::getId).toList())) {
+            graded.add(List.of((UUID) pair[0], (UUID) pair[1]));
+        }
         for (TestEntity t : tests) {
             for (User s : students) {
-                // Avoid duplicate grades for same student and test by checking in-memory (since no unique constraint)
-                boolean exists = gradeRepository.findAll().stream()
-                        .anyMatch(g -> g.getStudent().getId().equals(s.getId()) && g.getTest() != null && g.getTest().getId().equals(t.getId()));
-                if (!exists) {
+                if (graded.add(List.of(s.getId(), t.getId()))) {
                     Grade g = Grade.builder()
                             .student(s)
                             .test(t)
@@ -208,10 +199,8 @@ public class TestdataController {
         int orphanGrades = 0;
         // create 2 grades with no test
         final UUID orphanId = orphan.getId();
-        List<Grade> existingOrphanGrades = gradeRepository.findAll().stream()
-                .filter(g -> g.getStudent().getId().equals(orphanId) && g.getTest() == null)
-                .toList();
-        for (int i = existingOrphanGrades.size(); i < 2; i++) {
+        long existingOrphanGrades = gradeRepository.countByStudent_IdAndTestIsNull(orphanId);
+        for (long i = existingOrphanGrades; i < 2; i++) {
             Grade g = Grade.builder()
                     .student(orphan)
                     .test(null)
@@ -224,9 +213,25 @@ public class TestdataController {
         summary.put("orphanUser", orphan.getUsername());
         summary.put("orphanGradesCreated", orphanGrades);
 
+        // Grades above were saved directly through the repository
+        gradeRepository.flush();
+        summary.put("gradeAggregateRows", gradeAggregateService.rebuildAll());
+        semesterReportCache.evictAll();
+
         return ResponseEntity.ok(summary);
     }
 
+    @PostMapping(value = "/generate", consumes = "application/json", produces = "application/json")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Generate a large synthetic dataset",
+            description = "Bulk-loads students, subjects, semesters, classes, tests and grades of the given sizes with COPY. "
+                    + "The same seed and prefix always produce the same rows and ids; names and ids depend on the prefix "
+                    + "(default gen-<seed>) so several datasets can coexist, and an existing one is answered with 409. Generated users have the password 'password'. Returns the number "
+                    + "of rows per table and the elapsed time.")
+    public ResponseEntity<Map<String, Object>> generate(@Valid @RequestBody(required = false) SyntheticDataRequest request) {
+        return ResponseEntity.ok(syntheticDataGenerator.generate(request != null ? request : new SyntheticDataRequest()));
+    }
+
     // Generate grades 1..6 with ~70% in [4,6]
     private double randomGrade1to6Biased(Random rnd) {
         // Two-phase: with 70% pick in [4,6], otherwise in [1,4)
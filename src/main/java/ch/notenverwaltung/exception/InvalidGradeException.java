@@ -0,0 +1,7 @@
+package ch.notenverwaltung.exception;
+
+public class InvalidGradeException extends RuntimeException {
+    public InvalidGradeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ch.notenverwaltung.exception;
+
+public class InvalidImportFileException extends RuntimeException {
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package ch.notenverwaltung.exception;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Unknown, expired, revoked or reused refresh token; answered with 401 by GlobalExceptionHandler.
+ */
+public class InvalidRefreshTokenException extends AuthenticationException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -11,8 +11,14 @@ public class AuthResponseDTO {
     
     private String token;
     private String tokenType = "Bearer";
+    private String refreshToken; // exchange at /public/auth/refresh when the access token expires
     
     public AuthResponseDTO(String token) {
         this.token = token;
     }
+
+    public AuthResponseDTO(String token, String refreshToken) {
+        this.token = token;
+        this.refreshToken = refreshToken;
+    }
 }
\ No newline at end of file
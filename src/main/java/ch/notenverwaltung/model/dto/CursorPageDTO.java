@@ -0,0 +1,20 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    @Builder.Default
+    private List<T> content = new ArrayList<>();
+    private int size;
+    private String nextCursor; // null when there are no further elements
+}
@@ -0,0 +1,19 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeAggregateCheckDTO {
+    private boolean consistent;
+    @Builder.Default
+    private List<GradeAggregateMismatchDTO> mismatches = new ArrayList<>();
+}
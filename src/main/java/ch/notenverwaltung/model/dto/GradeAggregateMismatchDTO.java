@@ -0,0 +1,26 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeAggregateMismatchDTO {
+    private UUID studentId;
+    private UUID semesterSubjectId;
+    // Recomputed from grades; null if the student has no grades in this semester subject
+    private BigDecimal expectedWeightedSum;
+    private BigDecimal expectedWeightSum;
+    private Long expectedGradeCount;
+    // Stored in grade_aggregates; null if the row is missing
+    private BigDecimal storedWeightedSum;
+    private BigDecimal storedWeightSum;
+    private Long storedGradeCount;
+}
@@ -0,0 +1,23 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * One grade of a batch for a single test.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeBatchItemDTO {
+    private UUID studentId;
+    private BigDecimal value;
+    private BigDecimal weight;
+    private String comment;
+}
@@ -0,0 +1,23 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeBatchResponseDTO {
+    private UUID testId;
+    private int created;
+    private int updated;
+    private int rejected;
+    @Builder.Default
+    private List<GradeBatchResultDTO> results = new ArrayList<>();
+}
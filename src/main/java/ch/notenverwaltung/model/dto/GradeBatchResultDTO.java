@@ -0,0 +1,25 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one batch row; {@code index} is its position in the request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeBatchResultDTO {
+    public enum Status { CREATED, UPDATED, REJECTED }
+
+    private int index;
+    private UUID studentId;
+    private Status status;
+    private UUID gradeId; // set if CREATED or UPDATED
+    private String error; // set if REJECTED
+}
@@ -0,0 +1,29 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress and outcome of a CSV grade import.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeImportDTO {
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private UUID id;
+    private Status status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long linesRead; // data lines, without the header
+    private long imported;
+    private long rejected; // details in the error file
+    private String message; // set if FAILED
+}
@@ -0,0 +1,28 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * State of a grade submitted through the ingestion queue.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeIngestStatusDTO {
+    public enum Status { QUEUED, SAVED, FAILED }
+
+    private UUID trackingId;
+    private Status status;
+    private LocalDateTime queuedAt;
+    private LocalDateTime completedAt;
+    private UUID gradeId; // set if SAVED
+    private Boolean created; // set if SAVED: false if an existing grade of the student for the test was overwritten
+    private String error; // set if FAILED
+}
@@ -0,0 +1,15 @@
+package ch.notenverwaltung.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshRequestDTO {
+
+    @NotBlank
+    private String refreshToken;
+}
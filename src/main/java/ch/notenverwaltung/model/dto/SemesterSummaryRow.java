@@ -0,0 +1,23 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SemesterSummaryRow {
+    private UUID studentId;
+    private String studentFirstName;
+    private String studentLastName;
+    private UUID subjectId; // null on the per-student rollup row
+    private String subjectName;
+    private BigDecimal weightedSum; // sum(value * weight)
+    private BigDecimal weightSum; // sum(weight)
+    private long gradeCount;
+    private boolean studentTotal; // true for the per-student rollup row
+}
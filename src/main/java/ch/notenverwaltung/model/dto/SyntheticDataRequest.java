@@ -0,0 +1,66 @@
+package ch.notenverwaltung.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Size of a generated dataset. Students are split into classes of {@code classSize}; every class
+ * exists once per semester and subject and has {@code testsPerClass} tests, each graded for all of
+ * its students, so the number of grades is students * semesters * subjects * testsPerClass, at
+ * most {@link #MAX_GRADES}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyntheticDataRequest {
+
+    // Everything is loaded in one transaction
+    public static final long MAX_GRADES = 50_000_000;
+
+    @Min(1)
+    @Max(1_000_000)
+    @Builder.Default
+    private int students = 100;
+
+    @Min(1)
+    @Max(100)
+    @Builder.Default
+    private int subjects = 8;
+
+    @Min(1)
+    @Max(40)
+    @Builder.Default
+    private int semesters = 2;
+
+    @Min(1)
+    @Max(50)
+    @Builder.Default
+    private int testsPerClass = 4;
+
+    @Min(1)
+    @Max(1000)
+    @Builder.Default
+    private int classSize = 25;
+
+    // Same seed and sizes produce the same data, including ids
+    @Builder.Default
+    private long seed = 42;
+
+    // Prepended to usernames and names so that several datasets can coexist; defaults to gen-<seed>
+    @Pattern(regexp = "[A-Za-z0-9_-]{1,20}")
+    private String prefix;
+
+    @JsonIgnore
+    @AssertTrue(message = "students * semesters * subjects * testsPerClass must not exceed " + MAX_GRADES)
+    public boolean isGradeCountWithinLimit() {
+        return (long) students * semesters * subjects * testsPerClass <= MAX_GRADES;
+    }
+}
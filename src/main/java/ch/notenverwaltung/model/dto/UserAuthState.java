@@ -0,0 +1,24 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * The only per-user data stateless JWT authentication needs from the database.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAuthState {
+    private UUID id; // a token must name this id, not that of an earlier user with the same username
+    private Boolean active;
+    private long roleVersion;
+
+    // Same rule as User.isEnabled
+    public boolean isEnabled() {
+        return active == null || active;
+    }
+}
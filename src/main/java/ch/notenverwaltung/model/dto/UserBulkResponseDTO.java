@@ -0,0 +1,20 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBulkResponseDTO {
+    private int created;
+    private int rejected;
+    @Builder.Default
+    private List<UserBulkResultDTO> results = new ArrayList<>();
+}
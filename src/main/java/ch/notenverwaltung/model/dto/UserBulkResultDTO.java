@@ -0,0 +1,27 @@
+package ch.notenverwaltung.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one roster row; {@code index} is its position in the roster (0-based), {@code line}
+ * the line number for CSV rosters.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBulkResultDTO {
+    public enum Status { CREATED, REJECTED }
+
+    private int index;
+    private Long line;
+    private String username;
+    private Status status;
+    private UUID userId; // set if CREATED
+    private String error; // set if REJECTED
+}
@@ -16,7 +16,7 @@ import java.util.UUID;
 @AllArgsConstructor
 public class Grade {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false, precision = 5, scale = 2)
@@ -28,11 +28,11 @@ public class Grade {
     @Column(name = "comment", nullable = true, length = 255)
     private String comment;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
     private User student;
 
-    @ManyToOne(optional = true)
+    @ManyToOne(optional = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "test_id", nullable = true)
     private TestEntity test;
 
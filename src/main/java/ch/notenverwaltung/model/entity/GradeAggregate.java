@@ -0,0 +1,30 @@
+package ch.notenverwaltung.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Running sum(value * weight), sum(weight) and count of a student's grades in one semester subject.
+ * Written only through the native statements in GradeAggregateRepository.
+ */
+@Entity
+@Table(name = "grade_aggregates")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeAggregate {
+    @EmbeddedId
+    private GradeAggregateId id;
+
+    @Column(name = "weighted_sum", nullable = false, precision = 19, scale = 4)
+    private BigDecimal weightedSum;
+
+    @Column(name = "weight_sum", nullable = false, precision = 19, scale = 2)
+    private BigDecimal weightSum;
+
+    @Column(name = "grade_count", nullable = false)
+    private long gradeCount;
+}
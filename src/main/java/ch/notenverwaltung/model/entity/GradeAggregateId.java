@@ -0,0 +1,22 @@
+package ch.notenverwaltung.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeAggregateId implements Serializable {
+    @Column(name = "student_id", nullable = false)
+    private UUID studentId;
+
+    @Column(name = "semester_subject_id", nullable = false)
+    private UUID semesterSubjectId;
+}
@@ -16,7 +16,7 @@ import java.util.UUID;
 @AllArgsConstructor
 public class TestEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
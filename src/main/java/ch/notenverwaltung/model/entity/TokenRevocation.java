@@ -0,0 +1,36 @@
+package ch.notenverwaltung.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "token_revocations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Revokes the single token with this id (jti claim)
+    @Column(name = "jti", length = 64)
+    private String jti;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    // With userId: revokes all of the user's tokens issued at or before this instant
+    @Column(name = "revoked_before")
+    private Instant revokedBefore;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -1,5 +1,6 @@
 package ch.notenverwaltung.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -29,7 +30,7 @@ import java.util.stream.Collectors;
 @EntityListeners(AuditingEntityListener.class)
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     // Required auth fields
@@ -62,6 +63,12 @@ public class User implements UserDetails {
     @Builder.Default
     private Boolean active = false;
 
+    // Bumped on every role change, invalidates tokens issued with an older version
+    @Column(name = "role_version", nullable = false)
+    @JsonIgnore
+    @Builder.Default
+    private long roleVersion = 0L;
+
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
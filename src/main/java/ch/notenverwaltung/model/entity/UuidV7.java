@@ -0,0 +1,19 @@
+package ch.notenverwaltung.model.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the annotated id as a time-ordered UUID (version 7) instead of a random one, so that
+ * new rows are appended at the right edge of the primary key index. Replaces
+ * {@code @GeneratedValue(strategy = GenerationType.UUID)}.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface UuidV7 {
+}
@@ -0,0 +1,44 @@
+package ch.notenverwaltung.model.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 (RFC 9562): 48 bit Unix timestamp in milliseconds, version, 12 bit counter, variant and
+ * 62 random bits. The counter makes ids generated by this JVM strictly increasing, also within the
+ * same millisecond; if it overflows, or the clock goes backwards, the timestamp runs slightly ahead.
+ * PostgreSQL compares uuids bytewise, so the ids sort by creation time.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // (milliseconds << 12) | counter of the last id
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << 12;
+        long state = LAST.updateAndGet(last -> Math.max(now, last + 1));
+        long millis = state >>> 12;
+        long counter = state & 0xFFF;
+        long msb = (millis << 16) | 0x7000L | counter;
+        long lsb = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EnumSet.of(EventType.INSERT);
+    }
+}
@@ -0,0 +1,80 @@
+package ch.notenverwaltung.repository;
+
+import ch.notenverwaltung.model.entity.GradeAggregate;
+import ch.notenverwaltung.model.entity.GradeAggregateId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface GradeAggregateRepository extends JpaRepository<GradeAggregate, GradeAggregateId> {
+
+    // Adds a (possibly negative) delta; concurrent writers serialize on the aggregate row
+    @Modifying
+    @Query(value = "insert into grade_aggregates (student_id, semester_subject_id, weighted_sum, weight_sum, grade_count) " +
+            " values (:studentId, :semesterSubjectId, :weightedSum, :weightSum, :gradeCount) " +
+            " on conflict (student_id, semester_subject_id) do update set " +
+            " weighted_sum = grade_aggregates.weighted_sum + excluded.weighted_sum, " +
+            " weight_sum = grade_aggregates.weight_sum + excluded.weight_sum, " +
+            " grade_count = grade_aggregates.grade_count + excluded.grade_count", nativeQuery = true)
+    void addDelta(@Param("studentId") UUID studentId,
+                  @Param("semesterSubjectId") UUID semesterSubjectId,
+                  @Param("weightedSum") BigDecimal weightedSum,
+                  @Param("weightSum") BigDecimal weightSum,
+                  @Param("gradeCount") long gradeCount);
+
+    @Modifying
+    @Query(value = "delete from grade_aggregates where student_id = :studentId " +
+            " and semester_subject_id = :semesterSubjectId and grade_count = 0", nativeQuery = true)
+    void deleteIfEmpty(@Param("studentId") UUID studentId,
+                       @Param("semesterSubjectId") UUID semesterSubjectId);
+
+    @Modifying
+    @Query(value = "delete from grade_aggregates where semester_subject_id = :semesterSubjectId", nativeQuery = true)
+    void deleteBySemesterSubject(@Param("semesterSubjectId") UUID semesterSubjectId);
+
+    @Modifying
+    @Query(value = "insert into grade_aggregates (student_id, semester_subject_id, weighted_sum, weight_sum, grade_count) " +
+            " select g.student_id, t.semester_subject_id, sum(g.value * g.weight), sum(g.weight), count(*) " +
+            " from grades g join tests t on t.id = g.test_id " +
+            " where t.semester_subject_id = :semesterSubjectId " +
+            " group by g.student_id, t.semester_subject_id", nativeQuery = true)
+    int insertFromGrades(@Param("semesterSubjectId") UUID semesterSubjectId);
+
+    @Modifying
+    @Query(value = "delete from grade_aggregates", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "insert into grade_aggregates (student_id, semester_subject_id, weighted_sum, weight_sum, grade_count) " +
+            " select g.student_id, t.semester_subject_id, sum(g.value * g.weight), sum(g.weight), count(*) " +
+            " from grades g join tests t on t.id = g.test_id " +
+            " group by g.student_id, t.semester_subject_id", nativeQuery = true)
+    int insertAllFromGrades();
+
+    /**
+     * Compares the table with a full recomputation from grades. Each row is
+     * [student_id, semester_subject_id, expected weighted_sum, expected weight_sum, expected count,
+     * stored weighted_sum, stored weight_sum, stored count]; expected or stored values are null
+     * when the row is missing on that side.
+     */
+    @Query(value = "with expected as ( " +
+            " select g.student_id, t.semester_subject_id, sum(g.value * g.weight) as weighted_sum, " +
+            " sum(g.weight) as weight_sum, count(*) as grade_count " +
+            " from grades g join tests t on t.id = g.test_id " +
+            " group by g.student_id, t.semester_subject_id) " +
+            " select coalesce(e.student_id, a.student_id), coalesce(e.semester_subject_id, a.semester_subject_id), " +
+            " e.weighted_sum, e.weight_sum, e.grade_count, a.weighted_sum, a.weight_sum, a.grade_count " +
+            " from expected e full join grade_aggregates a " +
+            " on a.student_id = e.student_id and a.semester_subject_id = e.semester_subject_id " +
+            " where e.grade_count is distinct from a.grade_count " +
+            " or e.weighted_sum is distinct from a.weighted_sum " +
+            " or e.weight_sum is distinct from a.weight_sum", nativeQuery = true)
+    List<Object[]> findMismatches();
+}
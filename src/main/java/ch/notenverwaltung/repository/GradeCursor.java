@@ -0,0 +1,36 @@
+package ch.notenverwaltung.repository;
+
+import ch.notenverwaltung.exception.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the keyset order (created_on DESC, id DESC) of grades. Clients only ever see the
+ * opaque {@link #encode()}d form.
+ */
+@Data
+@AllArgsConstructor
+public class GradeCursor {
+    private LocalDateTime createdOn;
+    private UUID id;
+
+    public String encode() {
+        String raw = createdOn + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static GradeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new GradeCursor(LocalDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+}
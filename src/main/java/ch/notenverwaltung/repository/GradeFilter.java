@@ -0,0 +1,26 @@
+package ch.notenverwaltung.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Optional filter criteria for grade listings. Every non-null field is combined with AND
+ * and evaluated by the database (see {@link GradeSpecifications}).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeFilter {
+    private UUID studentId;
+    private UUID testId;
+    private BigDecimal valueMin;
+    private BigDecimal valueMax;
+    private String studentUsername; // case-insensitive contains
+    private String testName; // case-insensitive contains
+}
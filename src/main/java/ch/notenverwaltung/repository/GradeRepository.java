@@ -2,17 +2,26 @@ package ch.notenverwaltung.repository;
 
 import ch.notenverwaltung.model.dto.SemesterGradeRow;
 import ch.notenverwaltung.model.entity.Grade;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface GradeRepository extends JpaRepository<Grade, UUID> {
-    org.springframework.data.domain.Page<Grade> findByStudent_Id(UUID studentId, org.springframework.data.domain.Pageable pageable);
+public interface GradeRepository extends JpaRepository<Grade, UUID>, JpaSpecificationExecutor<Grade>, GradeRepositoryCustom {
 
     @Query("select new ch.notenverwaltung.model.dto.SemesterGradeRow(" +
             " g.id, u.id, u.firstName, u.lastName, subj.id, subj.name, t.id, t.name, t.date, g.value, g.weight, g.comment) " +
@@ -26,4 +35,73 @@ public interface GradeRepository extends JpaRepository<Grade, UUID> {
             " and ( u.id = COALESCE(:studentId, u.id) )")
     List<SemesterGradeRow> findSemesterGrades(@Param("semesterId") UUID semesterId,
                                               @Param("studentId") UUID studentId);
+
+    // Same rows as findSemesterGrades, ordered by student and subject and fetched in chunks
+    // so that callers can aggregate one student at a time. Must be consumed inside a transaction.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new ch.notenverwaltung.model.dto.SemesterGradeRow(" +
+            " g.id, u.id, u.firstName, u.lastName, subj.id, subj.name, t.id, t.name, t.date, g.value, g.weight, g.comment) " +
+            " from Grade g " +
+            " join g.student u " +
+            " left join g.test t " +
+            " left join t.semesterSubject ss " +
+            " left join ss.subject subj " +
+            " left join ss.semester sem " +
+            " where sem.id = :semesterId " +
+            " and ( u.id = COALESCE(:studentId, u.id) ) " +
+            " order by u.id, subj.id")
+    Stream<SemesterGradeRow> streamSemesterGrades(@Param("semesterId") UUID semesterId,
+                                                  @Param("studentId") UUID studentId);
+
+    // [student id, test id] of all grades of the given tests
+    @Query("select g.student.id, g.test.id from Grade g where g.test.id in :testIds")
+    List<Object[]> findStudentAndTestIdsByTestIdIn(@Param("testIds") Collection<UUID> testIds);
+
+    long countByStudent_IdAndTestIsNull(UUID studentId);
+
+    // Row lock so that concurrent updates, deletes and upserts of the grade compute their aggregate
+    // deltas from the current values instead of all from the same old ones
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select g from Grade g where g.id = :id")
+    Optional<Grade> findByIdForUpdate(@Param("id") UUID id);
+
+    List<Grade> findByTest_IdAndStudent_IdIn(UUID testId, Collection<UUID> studentIds);
+
+    // Inserts the grade or, if the student already has a grade for the test, overwrites its value,
+    // weight and comment, in one statement (unique index uq_grades_student_test, V10). Returns one row
+    // [id, created_on, inserted, previous value, previous weight]; the previous values are null for inserts.
+    @Query(value = "with previous as ( " +
+            "   select value, weight from grades where student_id = :studentId and test_id = :testId for update " +
+            " ), upserted as ( " +
+            "   insert into grades (id, value, weight, comment, student_id, test_id, created_on) " +
+            "   values (:id, :value, :weight, :comment, :studentId, :testId, localtimestamp) " +
+            "   on conflict (student_id, test_id) where test_id is not null do update " +
+            "   set value = excluded.value, weight = excluded.weight, comment = excluded.comment " +
+            "   returning id, created_on, (xmax = 0) as inserted " +
+            " ) " +
+            " select u.id, u.created_on, u.inserted, p.value, p.weight from upserted u left join previous p on true",
+            nativeQuery = true)
+    List<Object[]> upsert(@Param("id") UUID id,
+                          @Param("studentId") UUID studentId,
+                          @Param("testId") UUID testId,
+                          @Param("value") BigDecimal value,
+                          @Param("weight") BigDecimal weight,
+                          @Param("comment") String comment);
+
+    // Inserts the grade unless the student already has a grade for the test. Returns one row
+    // [id, created_on] if inserted and none otherwise.
+    @Query(value = "insert into grades (id, value, weight, comment, student_id, test_id, created_on) " +
+            " values (:id, :value, :weight, :comment, :studentId, :testId, localtimestamp) " +
+            " on conflict (student_id, test_id) where test_id is not null do nothing " +
+            " returning id, created_on",
+            nativeQuery = true)
+    List<Object[]> insertIfAbsent(@Param("id") UUID id,
+                                  @Param("studentId") UUID studentId,
+                                  @Param("testId") UUID testId,
+                                  @Param("value") BigDecimal value,
+                                  @Param("weight") BigDecimal weight,
+                                  @Param("comment") String comment);
 }
@@ -0,0 +1,38 @@
+package ch.notenverwaltung.repository;
+
+import ch.notenverwaltung.model.dto.GradeViewDTO;
+import ch.notenverwaltung.model.dto.SemesterSummaryRow;
+import ch.notenverwaltung.model.entity.Grade;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface GradeRepositoryCustom {
+
+    /**
+     * Seek query: returns at most {@code limit} grades matching {@code spec} in keyset order
+     * (created_on DESC, id DESC) without issuing a count query.
+     */
+    List<Grade> findKeysetPage(Specification<Grade> spec, int limit);
+
+    /**
+     * Enriched grade view as a constructor projection: grades, students and tests are read in one
+     * joined select (plus the count query when needed), no entities or role collections are loaded.
+     */
+    Page<GradeViewDTO> findViewPage(Specification<Grade> spec, Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #findViewPage}, see {@link #findKeysetPage}.
+     */
+    List<GradeViewDTO> findViewKeysetPage(Specification<Grade> spec, int limit);
+
+    /**
+     * Weighted sums per student and subject plus one rollup row per student (studentTotal = true),
+     * read from grade_aggregates (one row per student and subject) with a single GROUP BY ROLLUP query. Rows are ordered by student; the rollup row
+     * follows the subject rows of its student.
+     */
+    List<SemesterSummaryRow> findSemesterSummary(UUID semesterId, UUID studentId);
+}
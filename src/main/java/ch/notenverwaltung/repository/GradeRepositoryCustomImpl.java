@@ -0,0 +1,137 @@
+package ch.notenverwaltung.repository;
+
+import ch.notenverwaltung.model.dto.GradeViewDTO;
+import ch.notenverwaltung.model.dto.SemesterSummaryRow;
+import ch.notenverwaltung.model.entity.Grade;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class GradeRepositoryCustomImpl implements GradeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Grade> findKeysetPage(Specification<Grade> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Grade> query = cb.createQuery(Grade.class);
+        Root<Grade> root = query.from(Grade.class);
+        applyWhere(spec, root, query, cb);
+        query.select(root).orderBy(GradeSpecifications.keysetOrder(root, cb));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Page<GradeViewDTO> findViewPage(Specification<Grade> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<GradeViewDTO> query = cb.createQuery(GradeViewDTO.class);
+        Root<Grade> root = query.from(Grade.class);
+        applyWhere(spec, root, query, cb);
+        query.select(viewSelection(root, cb));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+        TypedQuery<GradeViewDTO> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(typed.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<GradeViewDTO> findViewKeysetPage(Specification<Grade> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<GradeViewDTO> query = cb.createQuery(GradeViewDTO.class);
+        Root<Grade> root = query.from(Grade.class);
+        applyWhere(spec, root, query, cb);
+        query.select(viewSelection(root, cb)).orderBy(GradeSpecifications.keysetOrder(root, cb));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<SemesterSummaryRow> findSemesterSummary(UUID semesterId, UUID studentId) {
+        String sql = "select u.id, u.first_name, u.last_name, subj.id, subj.name, " +
+                " sum(a.weighted_sum), sum(a.weight_sum), sum(a.grade_count), " +
+                " grouping(subj.id, subj.name) " +
+                " from grade_aggregates a " +
+                " join users u on u.id = a.student_id " +
+                " join semester_subjects ss on ss.id = a.semester_subject_id " +
+                " join subjects subj on subj.id = ss.subject_id " +
+                " where ss.semester_id = :semesterId " +
+                (studentId != null ? " and a.student_id = :studentId " : "") +
+                " group by rollup ((u.id, u.first_name, u.last_name), (subj.id, subj.name)) " +
+                " having grouping(u.id, u.first_name, u.last_name) = 0 " +
+                " order by u.id, grouping(subj.id, subj.name), subj.id";
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("semesterId", semesterId);
+        if (studentId != null) {
+            query.setParameter("studentId", studentId);
+        }
+        List<Object[]> rows = query.getResultList();
+        List<SemesterSummaryRow> result = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            result.add(new SemesterSummaryRow(
+                    (UUID) r[0],
+                    (String) r[1],
+                    (String) r[2],
+                    (UUID) r[3],
+                    (String) r[4],
+                    (BigDecimal) r[5],
+                    (BigDecimal) r[6],
+                    ((Number) r[7]).longValue(),
+                    ((Number) r[8]).intValue() != 0));
+        }
+        return result;
+    }
+
+    private long count(Specification<Grade> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Grade> root = query.from(Grade.class);
+        applyWhere(spec, root, query, cb);
+        query.select(cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void applyWhere(Specification<Grade> spec, Root<Grade> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+    }
+
+    // Argument order matches the GradeViewDTO all-args constructor
+    private static CompoundSelection<GradeViewDTO> viewSelection(Root<Grade> root, CriteriaBuilder cb) {
+        return cb.construct(GradeViewDTO.class,
+                root.get("id"),
+                root.get("value"),
+                root.get("weight"),
+                root.get("comment"),
+                GradeSpecifications.student(root).get("username"),
+                GradeSpecifications.test(root).get("name"),
+                root.get("createdOn"));
+    }
+}
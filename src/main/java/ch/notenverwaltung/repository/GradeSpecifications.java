@@ -0,0 +1,104 @@
+package ch.notenverwaltung.repository;
+
+import ch.notenverwaltung.model.entity.Grade;
+import ch.notenverwaltung.model.entity.TestEntity;
+import ch.notenverwaltung.model.entity.User;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JPA specifications that translate a {@link GradeFilter} into a single WHERE clause,
+ * so paging and counting happen on the filtered result in the database.
+ */
+public final class GradeSpecifications {
+
+    private GradeSpecifications() {
+    }
+
+    public static Specification<Grade> matching(GradeFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getStudentId() != null) {
+                predicates.add(cb.equal(root.get("student").get("id"), filter.getStudentId()));
+            }
+            if (filter.getTestId() != null) {
+                predicates.add(cb.equal(root.get("test").get("id"), filter.getTestId()));
+            }
+            if (filter.getValueMin() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<BigDecimal>get("value"), filter.getValueMin()));
+            }
+            if (filter.getValueMax() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<BigDecimal>get("value"), filter.getValueMax()));
+            }
+            if (StringUtils.hasText(filter.getStudentUsername())) {
+                predicates.add(cb.like(cb.lower(student(root).<String>get("username")),
+                        LikePatterns.contains(filter.getStudentUsername()), LikePatterns.ESCAPE));
+            }
+            if (StringUtils.hasText(filter.getTestName())) {
+                predicates.add(cb.like(cb.lower(test(root).<String>get("name")),
+                        LikePatterns.contains(filter.getTestName()), LikePatterns.ESCAPE));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Seek predicate for keyset paging: only grades strictly after {@code cursor} in the order
+     * (created_on DESC, id DESC). The redundant {@code created_on <= ?} bound lets PostgreSQL
+     * turn the condition into an index range scan.
+     */
+    public static Specification<Grade> after(GradeCursor cursor) {
+        return (root, query, cb) -> {
+            Path<LocalDateTime> createdOn = root.get("createdOn");
+            Path<UUID> id = root.get("id");
+            return cb.and(
+                    cb.lessThanOrEqualTo(createdOn, cursor.getCreatedOn()),
+                    cb.or(
+                            cb.lessThan(createdOn, cursor.getCreatedOn()),
+                            cb.and(cb.equal(createdOn, cursor.getCreatedOn()), cb.lessThan(id, cursor.getId()))
+                    ));
+        };
+    }
+
+    public static List<Order> keysetOrder(Root<Grade> root, CriteriaBuilder cb) {
+        return List.of(cb.desc(root.get("createdOn")), cb.desc(root.get("id")));
+    }
+
+    /**
+     * Returns the inner join to the student, reusing an existing one so that filters and
+     * projections on the same query share a single join.
+     */
+    public static Join<Grade, User> student(Root<Grade> root) {
+        return join(root, "student", JoinType.INNER);
+    }
+
+    /**
+     * Returns the left join to the test (grades may exist without a test), reusing an existing one.
+     */
+    public static Join<Grade, TestEntity> test(Root<Grade> root) {
+        return join(root, "test", JoinType.LEFT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Y> Join<Grade, Y> join(Root<Grade> root, String attribute, JoinType type) {
+        for (Join<Grade, ?> existing : root.getJoins()) {
+            if (existing.getAttribute().getName().equals(attribute) && existing.getJoinType() == type) {
+                return (Join<Grade, Y>) existing;
+            }
+        }
+        return root.join(attribute, type);
+    }
+}
@@ -0,0 +1,39 @@
+package ch.notenverwaltung.repository;
+
+import java.util.Locale;
+
+/**
+ * Case-insensitive "contains" LIKE patterns, shared by the criteria filters ({@link GradeSpecifications})
+ * and the JPQL search queries ({@link UserRepository}).
+ */
+public final class LikePatterns {
+
+    /**
+     * Escape character for the wildcards in a pattern built by {@link #contains(String)}.
+     */
+    public static final char ESCAPE = '!';
+
+    /**
+     * JPQL clause to append after {@code like :pattern}; kept in sync with {@link #ESCAPE}.
+     */
+    public static final String ESCAPE_CLAUSE = " escape '" + ESCAPE + "' ";
+
+    private LikePatterns() {
+    }
+
+    /**
+     * Lower-cased {@code %term%} pattern with LIKE wildcards escaped. Matches the lower(...) trigram
+     * indexes created in V5.
+     */
+    public static String contains(String term) {
+        String lower = term.toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(lower.length() + 2).append('%');
+        for (char c : lower.toCharArray()) {
+            if (c == ESCAPE || c == '%' || c == '_') {
+                sb.append(ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.append('%').toString();
+    }
+}
@@ -0,0 +1,90 @@
+package ch.notenverwaltung.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Streams rows into a table with {@code COPY ... FROM STDIN (FORMAT csv)} on the given connection.
+ * Rows are encoded into a small buffer that is handed to the driver whenever it fills up, so
+ * arbitrarily many rows can be written with constant memory. Must be closed (or aborted) before
+ * the connection is used for anything else.
+ */
+public class PostgresCopyWriter implements AutoCloseable {
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final CopyIn copyIn;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(FLUSH_THRESHOLD + 1024);
+    private final StringBuilder row = new StringBuilder(256);
+    private long rows;
+
+    /**
+     * @param connection a PostgreSQL connection (may be wrapped by a pool)
+     * @param table      target table, optionally with a column list, e.g. {@code staging (a, b)}
+     */
+    public PostgresCopyWriter(Connection connection, String table) throws SQLException {
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + table + " FROM STDIN WITH (FORMAT csv)");
+    }
+
+    /**
+     * Appends one row; null values are written as SQL NULL, everything else via {@code toString()}.
+     */
+    public void write(Object... values) throws SQLException {
+        row.setLength(0);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            Object value = values[i];
+            if (value != null) {
+                // Always quoted: an unquoted empty field would be NULL
+                row.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+            }
+        }
+        row.append('\n');
+        buffer.writeBytes(row.toString().getBytes(StandardCharsets.UTF_8));
+        rows++;
+        if (buffer.size() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.size() > 0) {
+            copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Sends the remaining rows and completes the COPY; returns the number of rows copied.
+     */
+    public long finish() throws SQLException {
+        flush();
+        return copyIn.endCopy();
+    }
+
+    /**
+     * Cancels an unfinished COPY; called by {@link #close()} if {@link #finish()} was not.
+     */
+    public void abort() throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        abort();
+    }
+}
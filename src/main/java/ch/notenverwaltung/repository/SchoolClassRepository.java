@@ -4,8 +4,11 @@ import ch.notenverwaltung.model.entity.SchoolClass;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface SchoolClassRepository extends JpaRepository<SchoolClass, UUID> {
+
+    Optional<SchoolClass> findFirstBySemesterSubject_Id(UUID semesterSubjectId);
 }
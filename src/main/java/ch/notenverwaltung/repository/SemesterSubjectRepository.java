@@ -4,9 +4,12 @@ import ch.notenverwaltung.model.entity.SemesterSubject;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface SemesterSubjectRepository extends JpaRepository<SemesterSubject, UUID> {
     boolean existsBySemester_IdAndSubject_Id(UUID semesterId, UUID subjectId);
+
+    Optional<SemesterSubject> findBySemester_IdAndSubject_Id(UUID semesterId, UUID subjectId);
 }
@@ -4,9 +4,12 @@ import ch.notenverwaltung.model.entity.Subject;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface SubjectRepository extends JpaRepository<Subject, UUID> {
     boolean existsByName(String name);
+
+    Optional<Subject> findByName(String name);
 }
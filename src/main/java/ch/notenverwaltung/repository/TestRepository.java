@@ -2,10 +2,25 @@ package ch.notenverwaltung.repository;
 
 import ch.notenverwaltung.model.entity.TestEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface TestRepository extends JpaRepository<TestEntity, UUID> {
+
+    @Query("select distinct t.semesterSubject.id from TestEntity t where t.schoolClass.id = :classId")
+    List<UUID> findSemesterSubjectIdsByClassId(@Param("classId") UUID classId);
+
+    @Query("select distinct t.semesterSubject.semester.id from TestEntity t where t.schoolClass.id = :classId")
+    List<UUID> findSemesterIdsByClassId(@Param("classId") UUID classId);
+
+    List<TestEntity> findBySchoolClass_Id(UUID classId);
+
+    // [test id, semester subject id, semester id] of all tests, for resolving test ids in bulk imports
+    @Query("select t.id, ss.id, ss.semester.id from TestEntity t join t.semesterSubject ss")
+    List<Object[]> findAllSemesterSubjectAndSemesterIds();
 }
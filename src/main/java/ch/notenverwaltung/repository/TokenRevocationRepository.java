@@ -0,0 +1,25 @@
+package ch.notenverwaltung.repository;
+
+import ch.notenverwaltung.model.entity.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    // Initial load: everything that still covers unexpired tokens
+    List<TokenRevocation> findByExpiresAtAfter(Instant now);
+
+    // Incremental reload
+    List<TokenRevocation> findByCreatedAtAfterAndExpiresAtAfter(Instant since, Instant now);
+
+    @Modifying
+    @Query("delete from TokenRevocation r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,11 +1,17 @@
 package ch.notenverwaltung.repository;
 
+import ch.notenverwaltung.model.dto.UserAuthState;
+import ch.notenverwaltung.model.dto.UserSummaryDTO;
 import ch.notenverwaltung.model.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,6 +19,36 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    // Ids of the given users that exist, without loading users and their roles
+    @Query("select u.id from User u where u.id in :ids")
+    List<UUID> findIdsByIdIn(@Param("ids") Collection<UUID> ids);
     // Merged student query: list active users (students)
     Page<User> findByActiveTrue(Pageable pageable);
+
+    // Reads only the three columns stateless token checks need, without loading the role collection
+    @Query("select new ch.notenverwaltung.model.dto.UserAuthState(u.id, u.active, u.roleVersion) from User u where u.username = :username")
+    Optional<UserAuthState> findAuthStateByUsername(@Param("username") String username);
+
+    // [username, email] of existing users clashing with any of the given usernames or emails
+    @Query("select u.username, u.email from User u where u.username in :usernames or u.email in :emails")
+    List<Object[]> findUsernamesAndEmailsIn(@Param("usernames") Collection<String> usernames,
+                                            @Param("emails") Collection<String> emails);
+
+    // [username, id] of all users, for resolving usernames in bulk imports
+    @Query("select u.username, u.id from User u")
+    List<Object[]> findAllUsernamesAndIds();
+
+    // Typeahead search over username, first and last name; served by the lower(...) trigram indexes (V5).
+    // Expects a pattern from LikePatterns.contains.
+    @Query(value = "select new ch.notenverwaltung.model.dto.UserSummaryDTO(u.id, u.username, u.firstName, u.lastName) " +
+            " from User u " +
+            " where lower(u.username) like :pattern" + LikePatterns.ESCAPE_CLAUSE +
+            " or lower(u.firstName) like :pattern" + LikePatterns.ESCAPE_CLAUSE +
+            " or lower(u.lastName) like :pattern" + LikePatterns.ESCAPE_CLAUSE,
+            countQuery = "select count(u) from User u " +
+                    " where lower(u.username) like :pattern" + LikePatterns.ESCAPE_CLAUSE +
+                    " or lower(u.firstName) like :pattern" + LikePatterns.ESCAPE_CLAUSE +
+                    " or lower(u.lastName) like :pattern" + LikePatterns.ESCAPE_CLAUSE)
+    Page<UserSummaryDTO> searchByName(@Param("pattern") String pattern, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package ch.notenverwaltung.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: comma separated, fields optionally enclosed in double quotes
+ * (which may contain commas, line breaks and doubled quotes), CRLF or LF line endings. Reads one
+ * record at a time, so the input is never held in memory as a whole. Blank lines are skipped and a
+ * leading byte order mark is ignored.
+ */
+final class CsvReader implements Closeable {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int pushedBack = Integer.MIN_VALUE;
+    private long line = 1;
+    private long recordLine;
+    private boolean first = true;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * The next record, or null at the end of the input.
+     *
+     * @throws IllegalArgumentException if a quoted field is not closed or followed by garbage
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (first) {
+            first = false;
+            if (c == '\uFEFF') {
+                c = read();
+            }
+        }
+        // Skip blank lines
+        while (c == '\r' || c == '\n') {
+            c = lineBreak(c);
+        }
+        if (c == EOF) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        while (true) {
+            if (c == '"' && field.isEmpty()) {
+                c = quoted(field);
+            } else {
+                while (c != ',' && c != '\r' && c != '\n' && c != EOF) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            fields.add(field.toString());
+            field.setLength(0);
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c != EOF) {
+                pushedBack = lineBreak(c);
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * Line number (1-based) on which the record returned by the last {@link #next} call starts.
+     */
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    // Reads a quoted field after the opening quote; returns the character following the closing quote
+    private int quoted(StringBuilder field) throws IOException {
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+            }
+            if (c == '"') {
+                int next = read();
+                if (next != '"') {
+                    if (next != ',' && next != '\r' && next != '\n' && next != EOF) {
+                        throw new IllegalArgumentException("Unexpected character after closing quote on line " + line);
+                    }
+                    return next;
+                }
+            } else if (c == '\n') {
+                line++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    // Consumes a line break starting with c and returns the first character of the next line
+    private int lineBreak(int c) throws IOException {
+        line++;
+        int next = read();
+        if (c == '\r' && next == '\n') {
+            next = read();
+        }
+        return next;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != Integer.MIN_VALUE) {
+            int c = pushedBack;
+            pushedBack = Integer.MIN_VALUE;
+            return c;
+        }
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,120 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.dto.GradeAggregateCheckDTO;
+import ch.notenverwaltung.model.dto.GradeAggregateMismatchDTO;
+import ch.notenverwaltung.model.entity.Grade;
+import ch.notenverwaltung.repository.GradeAggregateRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the grade_aggregates table: per student and semester subject the running
+ * sum(value * weight), sum(weight) and grade count. Single grade writes apply a delta in the
+ * caller's transaction; bulk changes (tests moved or deleted) rebuild the affected semester subject.
+ */
+@Service
+@RequiredArgsConstructor
+public class GradeAggregateService {
+
+    private final GradeAggregateRepository gradeAggregateRepository;
+
+    /**
+     * Adds the grade's contribution. Grades without a test are not aggregated.
+     */
+    @Transactional
+    public void add(Grade grade) {
+        apply(grade, 1);
+    }
+
+    /**
+     * Removes the grade's contribution, e.g. before the grade is deleted or changed.
+     */
+    @Transactional
+    public void remove(Grade grade) {
+        apply(grade, -1);
+    }
+
+    /**
+     * Applies an upserted grade of a test: adds the new value and weight and, if the upsert replaced
+     * an existing grade (non-null previous values), removes that grade's contribution.
+     */
+    @Transactional
+    public void replace(UUID studentId, UUID semesterSubjectId, BigDecimal previousValue, BigDecimal previousWeight,
+                        BigDecimal value, BigDecimal weight) {
+        BigDecimal weightedSum = value.multiply(weight);
+        BigDecimal weightSum = weight;
+        long count = 1;
+        if (previousValue != null) {
+            weightedSum = weightedSum.subtract(previousValue.multiply(previousWeight));
+            weightSum = weightSum.subtract(previousWeight);
+            count = 0;
+        }
+        gradeAggregateRepository.addDelta(studentId, semesterSubjectId, weightedSum, weightSum, count);
+    }
+
+    private void apply(Grade grade, int sign) {
+        if (grade.getTest() == null) {
+            return;
+        }
+        UUID studentId = grade.getStudent().getId();
+        UUID semesterSubjectId = grade.getTest().getSemesterSubject().getId();
+        BigDecimal weightedSum = grade.getValue().multiply(grade.getWeight());
+        BigDecimal weight = grade.getWeight();
+        if (sign < 0) {
+            weightedSum = weightedSum.negate();
+            weight = weight.negate();
+        }
+        gradeAggregateRepository.addDelta(studentId, semesterSubjectId, weightedSum, weight, sign);
+        if (sign < 0) {
+            gradeAggregateRepository.deleteIfEmpty(studentId, semesterSubjectId);
+        }
+    }
+
+    /**
+     * Recomputes the aggregates of the given semester subjects from grades. Pending entity changes
+     * must be flushed before, since the recomputation reads the grades table.
+     */
+    @Transactional
+    public void rebuild(Collection<UUID> semesterSubjectIds) {
+        for (UUID semesterSubjectId : semesterSubjectIds) {
+            gradeAggregateRepository.deleteBySemesterSubject(semesterSubjectId);
+            gradeAggregateRepository.insertFromGrades(semesterSubjectId);
+        }
+    }
+
+    /**
+     * Recomputes the whole table and returns the number of aggregate rows.
+     */
+    @Transactional
+    public int rebuildAll() {
+        gradeAggregateRepository.deleteAllRows();
+        return gradeAggregateRepository.insertAllFromGrades();
+    }
+
+    @Transactional(readOnly = true)
+    public GradeAggregateCheckDTO check() {
+        List<GradeAggregateMismatchDTO> mismatches = gradeAggregateRepository.findMismatches().stream()
+                .map(r -> GradeAggregateMismatchDTO.builder()
+                        .studentId((UUID) r[0])
+                        .semesterSubjectId((UUID) r[1])
+                        .expectedWeightedSum((BigDecimal) r[2])
+                        .expectedWeightSum((BigDecimal) r[3])
+                        .expectedGradeCount(r[4] != null ? ((Number) r[4]).longValue() : null)
+                        .storedWeightedSum((BigDecimal) r[5])
+                        .storedWeightSum((BigDecimal) r[6])
+                        .storedGradeCount(r[7] != null ? ((Number) r[7]).longValue() : null)
+                        .build())
+                .collect(Collectors.toList());
+        return GradeAggregateCheckDTO.builder()
+                .consistent(mismatches.isEmpty())
+                .mismatches(mismatches)
+                .build();
+    }
+}
@@ -0,0 +1,346 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.exception.InvalidImportFileException;
+import ch.notenverwaltung.model.dto.GradeImportDTO;
+import ch.notenverwaltung.model.entity.UuidV7Generator;
+import ch.notenverwaltung.repository.PostgresCopyWriter;
+import ch.notenverwaltung.repository.TestRepository;
+import ch.notenverwaltung.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports grades from CSV (header {@code username,test_id,value,weight[,comment]}, UTF-8).
+ * <p>
+ * The upload is parsed while it streams in. Usernames and test ids are resolved against maps loaded
+ * once per import, valid lines are written with COPY into a temporary staging table and finally
+ * inserted into grades with one INSERT ... SELECT, all in one transaction. Invalid lines are skipped
+ * and listed with their line number in an error file. Aggregates of the affected semester subjects
+ * are rebuilt once at the end. Progress of running imports can be polled with {@link #list()}.
+ */
+@Service
+@Slf4j
+public class GradeImportService {
+
+    private static final String STAGING_TABLE = "grade_import_staging";
+    private static final long PROGRESS_LOG_INTERVAL = 100_000;
+
+    private final UserRepository userRepository;
+    private final TestRepository testRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GradeAggregateService gradeAggregateService;
+    private final SemesterReportCache semesterReportCache;
+
+    // Most recent imports; evicted ones lose their error file
+    private final Map<UUID, ImportJob> jobs;
+
+    public GradeImportService(UserRepository userRepository,
+                              TestRepository testRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              GradeAggregateService gradeAggregateService,
+                              SemesterReportCache semesterReportCache,
+                              @Value("${spring.grades.import.retained-jobs:20}") int retainedJobs) {
+        this.userRepository = userRepository;
+        this.testRepository = testRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.gradeAggregateService = gradeAggregateService;
+        this.semesterReportCache = semesterReportCache;
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, ImportJob> eldest) {
+                if (size() > retainedJobs && eldest.getValue().status != GradeImportDTO.Status.RUNNING) {
+                    eldest.getValue().deleteErrorFile();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Runs an import to completion and returns its outcome. Malformed files (missing columns,
+     * broken quoting) abort the import without writing anything.
+     */
+    public GradeImportDTO importCsv(InputStream csv) {
+        ImportJob job = new ImportJob(createErrorFile());
+        jobs.put(job.id, job);
+        try {
+            transactionTemplate.executeWithoutResult(status -> run(job, csv));
+            job.finish(GradeImportDTO.Status.COMPLETED, null);
+            log.info("Grade import {} completed: {} lines, {} imported, {} rejected",
+                    job.id, job.linesRead.get(), job.imported, job.rejected.get());
+        } catch (RuntimeException e) {
+            job.finish(GradeImportDTO.Status.FAILED, e.getMessage());
+            log.warn("Grade import {} failed after {} lines", job.id, job.linesRead.get(), e);
+            throw e;
+        }
+        return job.toDTO();
+    }
+
+    public List<GradeImportDTO> list() {
+        synchronized (jobs) {
+            List<GradeImportDTO> result = new ArrayList<>(jobs.size());
+            jobs.values().forEach(job -> result.add(job.toDTO()));
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    public Optional<GradeImportDTO> get(UUID id) {
+        return Optional.ofNullable(jobs.get(id)).map(ImportJob::toDTO);
+    }
+
+    /**
+     * The error file of a finished import: CSV with the columns line and error.
+     */
+    public Optional<Path> getErrorFile(UUID id) {
+        return Optional.ofNullable(jobs.get(id))
+                .filter(job -> job.status != GradeImportDTO.Status.RUNNING)
+                .map(job -> job.errorFile);
+    }
+
+    @PreDestroy
+    void deleteErrorFiles() {
+        synchronized (jobs) {
+            jobs.values().forEach(ImportJob::deleteErrorFile);
+        }
+    }
+
+    private void run(ImportJob job, InputStream in) {
+        Map<String, UUID> students = new HashMap<>();
+        for (Object[] row : userRepository.findAllUsernamesAndIds()) {
+            students.put(((String) row[0]).toLowerCase(Locale.ROOT), (UUID) row[1]);
+        }
+        Map<UUID, UUID[]> tests = new HashMap<>(); // test id -> [semester subject id, semester id]
+        for (Object[] row : testRepository.findAllSemesterSubjectAndSemesterIds()) {
+            tests.put((UUID) row[0], new UUID[]{(UUID) row[1], (UUID) row[2]});
+        }
+        Set<UUID> semesterSubjectIds = new HashSet<>();
+        Set<UUID> semesterIds = new HashSet<>();
+
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE " + STAGING_TABLE + " ("
+                + "id UUID NOT NULL, student_id UUID NOT NULL, test_id UUID NOT NULL, "
+                + "value NUMERIC(5,2) NOT NULL, weight NUMERIC(5,2) NOT NULL, comment VARCHAR(255)"
+                + ") ON COMMIT DROP");
+        // The transaction's connection, the same one JPA and the JdbcTemplate use
+        Connection connection = DataSourceUtils.getConnection(jdbcTemplate.getDataSource());
+        try (CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+             BufferedWriter errors = Files.newBufferedWriter(job.errorFile, StandardCharsets.UTF_8);
+             PostgresCopyWriter copy = new PostgresCopyWriter(connection,
+                     STAGING_TABLE + " (id, student_id, test_id, value, weight, comment)")) {
+            errors.write("line,error\n");
+            Columns columns = Columns.of(readRecord(reader));
+            List<String> fields;
+            while ((fields = readRecord(reader)) != null) {
+                long lines = job.linesRead.incrementAndGet();
+                if (lines % PROGRESS_LOG_INTERVAL == 0) {
+                    log.info("Grade import {}: {} lines read, {} rejected", job.id, lines, job.rejected.get());
+                }
+                Row row = new Row();
+                String error = parse(fields, columns, students, tests, row);
+                if (error != null) {
+                    job.rejected.incrementAndGet();
+                    errors.write(reader.getRecordLine() + "," + quote(error) + "\n");
+                    continue;
+                }
+                copy.write(UuidV7Generator.next(), row.studentId, row.testId,
+                        row.value.toPlainString(), row.weight.toPlainString(), row.comment);
+                UUID[] test = tests.get(row.testId);
+                semesterSubjectIds.add(test[0]);
+                semesterIds.add(test[1]);
+            }
+            copy.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into staging table failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, jdbcTemplate.getDataSource());
+        }
+
+        // One grade per student and test: of repeated lines the last one wins (ids grow in file order),
+        // and existing grades are overwritten. Sorted by id so that the v7 ids append to the primary
+        // key index in order.
+        job.imported = jdbcTemplate.update("INSERT INTO grades (id, value, weight, comment, student_id, test_id, created_on) "
+                + "SELECT id, value, weight, comment, student_id, test_id, LOCALTIMESTAMP FROM ("
+                + "SELECT DISTINCT ON (student_id, test_id) * FROM " + STAGING_TABLE + " ORDER BY student_id, test_id, id DESC"
+                + ") latest ORDER BY id "
+                + "ON CONFLICT (student_id, test_id) WHERE test_id IS NOT NULL DO UPDATE "
+                + "SET value = EXCLUDED.value, weight = EXCLUDED.weight, comment = EXCLUDED.comment");
+        gradeAggregateService.rebuild(semesterSubjectIds);
+        semesterIds.forEach(semesterReportCache::evictSemester);
+    }
+
+    private static List<String> readRecord(CsvReader reader) throws IOException {
+        try {
+            return reader.next();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImportFileException(e.getMessage());
+        }
+    }
+
+    // Fills row and returns null, or returns why the line is rejected
+    private static String parse(List<String> fields, Columns columns, Map<String, UUID> students,
+                                Map<UUID, UUID[]> tests, Row row) {
+        if (fields.size() < columns.required) {
+            return "expected at least " + columns.required + " fields, got " + fields.size();
+        }
+        String username = fields.get(columns.username).trim();
+        row.studentId = students.get(username.toLowerCase(Locale.ROOT));
+        if (row.studentId == null) {
+            return "unknown username '" + username + "'";
+        }
+        try {
+            row.testId = UUID.fromString(fields.get(columns.testId).trim());
+        } catch (IllegalArgumentException e) {
+            return "invalid test_id '" + fields.get(columns.testId) + "'";
+        }
+        if (!tests.containsKey(row.testId)) {
+            return "unknown test_id " + row.testId;
+        }
+        row.value = decimal(fields.get(columns.value));
+        if (row.value == null) {
+            return "invalid value '" + fields.get(columns.value) + "'";
+        }
+        row.weight = decimal(fields.get(columns.weight));
+        if (row.weight == null) {
+            return "invalid weight '" + fields.get(columns.weight) + "'";
+        }
+        if (columns.comment >= 0 && columns.comment < fields.size() && !fields.get(columns.comment).isEmpty()) {
+            row.comment = fields.get(columns.comment);
+            if (row.comment.length() > GradeValues.MAX_COMMENT_LENGTH) {
+                return "comment longer than " + GradeValues.MAX_COMMENT_LENGTH + " characters";
+            }
+        }
+        return null;
+    }
+
+    private static BigDecimal decimal(String text) {
+        try {
+            return GradeValues.numeric(new BigDecimal(text.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static Path createErrorFile() {
+        try {
+            return Files.createTempFile("grade-import-", "-errors.csv");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Columns(int username, int testId, int value, int weight, int comment, int required) {
+
+        static Columns of(List<String> header) {
+            if (header == null) {
+                throw new InvalidImportFileException("The file is empty");
+            }
+            List<String> names = header.stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+            int username = required(names, "username");
+            int testId = required(names, "test_id");
+            int value = required(names, "value");
+            int weight = required(names, "weight");
+            int required = Math.max(Math.max(username, testId), Math.max(value, weight)) + 1;
+            return new Columns(username, testId, value, weight, names.indexOf("comment"), required);
+        }
+
+        private static int required(List<String> names, String name) {
+            int index = names.indexOf(name);
+            if (index < 0) {
+                throw new InvalidImportFileException("Missing column '" + name + "' in header");
+            }
+            return index;
+        }
+    }
+
+    private static final class Row {
+        private UUID studentId;
+        private UUID testId;
+        private BigDecimal value;
+        private BigDecimal weight;
+        private String comment;
+    }
+
+    private static final class ImportJob {
+        private final UUID id = UUID.randomUUID();
+        private final Path errorFile;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong linesRead = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private volatile long imported;
+        private volatile GradeImportDTO.Status status = GradeImportDTO.Status.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String message;
+
+        private ImportJob(Path errorFile) {
+            this.errorFile = errorFile;
+        }
+
+        private void finish(GradeImportDTO.Status status, String message) {
+            this.message = message;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        private void deleteErrorFile() {
+            try {
+                Files.deleteIfExists(errorFile);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", errorFile, e);
+            }
+        }
+
+        private GradeImportDTO toDTO() {
+            return GradeImportDTO.builder()
+                    .id(id)
+                    .status(status)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .linesRead(linesRead.get())
+                    .imported(status == GradeImportDTO.Status.COMPLETED ? imported : 0)
+                    .rejected(rejected.get())
+                    .message(message)
+                    .build();
+        }
+    }
+}
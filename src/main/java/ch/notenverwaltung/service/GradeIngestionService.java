@@ -0,0 +1,371 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.exception.InvalidGradeException;
+import ch.notenverwaltung.exception.ServiceUnavailableException;
+import ch.notenverwaltung.model.dto.GradeDTO;
+import ch.notenverwaltung.model.dto.GradeIngestStatusDTO;
+import ch.notenverwaltung.model.entity.TestEntity;
+import ch.notenverwaltung.model.entity.UuidV7Generator;
+import ch.notenverwaltung.repository.TestRepository;
+import ch.notenverwaltung.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Optional asynchronous write path for single grades (spring.grades.ingest.enabled). Submissions
+ * are validated, put on a bounded queue and acknowledged with a tracking id; one writer thread
+ * drains the queue and saves up to batch-size grades per transaction, waiting at most max-delay
+ * for a batch to fill. Many concurrent submissions thus share one commit instead of paying one
+ * each. A full queue is answered with 503 and Retry-After.
+ * <p>
+ * Grades are saved like {@link GradeService#upsert}: only submissions with overwrite replace an
+ * existing grade of the student for the test, the others fail. If a batch fails as a whole, its grades are
+ * retried one transaction each, so that a bad submission only fails itself. Statuses are kept for
+ * status-retention after completion.
+ */
+@Service
+@Slf4j
+public class GradeIngestionService implements SmartLifecycle {
+
+    // Started before and stopped after the web server, so that no accepted submission is lost on shutdown
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final String SAVE_FAILED = "The grade could not be saved";
+
+    private final GradeService gradeService;
+    private final UserRepository userRepository;
+    private final TestRepository testRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final Duration shutdownTimeout;
+    private final BlockingQueue<Submission> queue;
+    private final Cache<UUID, Submission> submissions;
+    private final DistributionSummary batchSizes;
+
+    // Submissions check running and queue under the read lock and stop() clears running under the
+    // write lock, so nothing can be queued after the writer saw running == false and an empty queue
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread writer;
+
+    public GradeIngestionService(GradeService gradeService,
+                                 UserRepository userRepository,
+                                 TestRepository testRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.grades.ingest.enabled:false}") boolean enabled,
+                                 @Value("${spring.grades.ingest.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${spring.grades.ingest.batch-size:500}") int batchSize,
+                                 @Value("${spring.grades.ingest.max-delay:5ms}") Duration maxDelay,
+                                 @Value("${spring.grades.ingest.status-retention:10m}") Duration statusRetention,
+                                 @Value("${spring.grades.ingest.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.gradeService = gradeService;
+        this.userRepository = userRepository;
+        this.testRepository = testRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.shutdownTimeout = shutdownTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // Completed submissions are put again, so the retention counts from completion
+        this.submissions = Caffeine.newBuilder()
+                .expireAfterWrite(statusRetention.plus(shutdownTimeout))
+                .build();
+        Gauge.builder("grades.ingest.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("grades.ingest.batch.size").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Validates the grade and queues it for writing; the result can be followed with
+     * {@link #getStatus}. Without {@code overwrite} the submission fails if the student already
+     * has a grade for the test.
+     *
+     * @throws InvalidGradeException       if a required field is missing or a value does not fit
+     *                                     the grades table
+     * @throws ServiceUnavailableException if the queue is full or shutting down
+     */
+    public GradeIngestStatusDTO submit(GradeDTO dto, UUID submittedBy, boolean overwrite) {
+        if (dto.getStudentId() == null) {
+            throw new InvalidGradeException("studentId is required");
+        }
+        if (dto.getValue() == null) {
+            throw new InvalidGradeException("value is required");
+        }
+        if (dto.getWeight() == null) {
+            throw new InvalidGradeException("weight is required");
+        }
+        // Would otherwise fail the whole batch it is written with
+        String invalid = GradeValues.check(dto.getValue(), dto.getWeight(), dto.getComment());
+        if (invalid != null) {
+            throw new InvalidGradeException(invalid);
+        }
+        Lock lock = runningLock.readLock();
+        lock.lock();
+        try {
+            if (!running) {
+                throw new ServiceUnavailableException("Grade ingestion is not running", RETRY_AFTER);
+            }
+            Submission submission = new Submission(UuidV7Generator.next(), dto, submittedBy, overwrite);
+            submissions.put(submission.trackingId, submission);
+            if (!queue.offer(submission)) {
+                submissions.invalidate(submission.trackingId);
+                throw new ServiceUnavailableException("Grade ingestion queue is full", RETRY_AFTER);
+            }
+            return submission.toDTO();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the status of a submission, or empty if it is unknown, expired or was submitted by
+     * someone else and {@code requestedBy} is not null.
+     */
+    public Optional<GradeIngestStatusDTO> getStatus(UUID trackingId, UUID requestedBy) {
+        Submission submission = submissions.getIfPresent(trackingId);
+        if (submission == null || (requestedBy != null && !requestedBy.equals(submission.submittedBy))) {
+            return Optional.empty();
+        }
+        return Optional.of(submission.toDTO());
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "grade-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Grade ingestion queue started (batch size {}, max delay {})", batchSize, maxDelay);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // Stops accepting once the submissions in progress are queued; the writer empties the queue
+        // before it exits
+        Lock lock = runningLock.writeLock();
+        lock.lock();
+        try {
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Left over only if the writer timed out or was interrupted; their status must not stay QUEUED
+        List<Submission> unwritten = new ArrayList<>();
+        queue.drainTo(unwritten);
+        if (!unwritten.isEmpty()) {
+            log.warn("Grade ingestion writer did not finish within {}; {} grades not written", shutdownTimeout, unwritten.size());
+            for (Submission submission : unwritten) {
+                submission.fail("Not written before shutdown");
+                submissions.put(submission.trackingId, submission);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void drain() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                batchSizes.record(batch.size());
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Grade ingestion batch failed", e);
+                batch.forEach(s -> s.fail(SAVE_FAILED));
+            } finally {
+                batch.forEach(s -> submissions.put(s.trackingId, s));
+                batch.clear();
+            }
+        }
+    }
+
+    // Takes queued submissions until the batch is full or max-delay has passed since its first one
+    private void fill(List<Submission> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            Submission next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Submission> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> save(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                // The database error is logged, not shown to the submitter
+                log.warn("Grade ingestion of {} failed: {}", batch.get(0).trackingId, e.getMessage());
+                batch.get(0).fail(SAVE_FAILED);
+                return;
+            }
+            log.warn("Grade ingestion batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (Submission submission : batch) {
+                write(List.of(submission));
+            }
+            return;
+        }
+        // Committed
+        batch.forEach(Submission::complete);
+    }
+
+    private void save(List<Submission> batch) {
+        Set<UUID> studentIds = new HashSet<>();
+        Set<UUID> testIds = new HashSet<>();
+        for (Submission s : batch) {
+            studentIds.add(s.grade.getStudentId());
+            if (s.grade.getTestId() != null) {
+                testIds.add(s.grade.getTestId());
+            }
+        }
+        Set<UUID> students = new HashSet<>(userRepository.findIdsByIdIn(studentIds));
+        Map<UUID, TestEntity> tests = testRepository.findAllById(testIds).stream()
+                .collect(Collectors.toMap(TestEntity::getId, Function.identity()));
+        for (Submission s : batch) {
+            GradeDTO grade = s.grade;
+            s.reset();
+            if (!students.contains(grade.getStudentId())) {
+                s.error = "User not found with id: " + grade.getStudentId();
+            } else if (grade.getTestId() == null) {
+                s.saved = new GradeService.Upserted(gradeService.create(grade), true);
+            } else if (!tests.containsKey(grade.getTestId())) {
+                s.error = "Test not found with id: " + grade.getTestId();
+            } else {
+                s.saved = gradeService.upsert(grade, tests.get(grade.getTestId()), s.overwrite);
+                if (s.saved == null) {
+                    s.error = "Grade of student " + grade.getStudentId() + " for test " + grade.getTestId() + " already exists";
+                }
+            }
+        }
+    }
+
+    private static final class Submission {
+        private final UUID trackingId;
+        private final GradeDTO grade;
+        private final UUID submittedBy;
+        private final boolean overwrite;
+        private final LocalDateTime queuedAt = LocalDateTime.now();
+        private volatile GradeIngestStatusDTO.Status status = GradeIngestStatusDTO.Status.QUEUED;
+        private volatile LocalDateTime completedAt;
+
+        // Outcome within the running transaction, published by complete() after the commit
+        private GradeService.Upserted saved;
+        private String error;
+        private volatile GradeService.Upserted result;
+        private volatile String message;
+
+        private Submission(UUID trackingId, GradeDTO grade, UUID submittedBy, boolean overwrite) {
+            this.trackingId = trackingId;
+            this.grade = grade;
+            this.submittedBy = submittedBy;
+            this.overwrite = overwrite;
+        }
+
+        private void reset() {
+            saved = null;
+            error = null;
+        }
+
+        private void complete() {
+            if (error != null) {
+                fail(error);
+                return;
+            }
+            result = saved;
+            finish(GradeIngestStatusDTO.Status.SAVED);
+        }
+
+        private void fail(String message) {
+            this.message = message;
+            finish(GradeIngestStatusDTO.Status.FAILED);
+        }
+
+        private void finish(GradeIngestStatusDTO.Status status) {
+            this.completedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        private GradeIngestStatusDTO toDTO() {
+            GradeIngestStatusDTO.Status current = status;
+            GradeService.Upserted upserted = current == GradeIngestStatusDTO.Status.SAVED ? result : null;
+            return GradeIngestStatusDTO.builder()
+                    .trackingId(trackingId)
+                    .status(current)
+                    .queuedAt(queuedAt)
+                    .completedAt(completedAt)
+                    .gradeId(upserted != null ? upserted.grade().getId() : null)
+                    .created(upserted != null ? upserted.created() : null)
+                    .error(current == GradeIngestStatusDTO.Status.FAILED ? message : null)
+                    .build();
+        }
+    }
+}
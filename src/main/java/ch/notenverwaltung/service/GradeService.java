@@ -1,25 +1,44 @@
 package ch.notenverwaltung.service;
 
+import ch.notenverwaltung.exception.AlreadyExistsException;
+import ch.notenverwaltung.exception.InvalidGradeException;
+import ch.notenverwaltung.model.dto.CursorPageDTO;
+import ch.notenverwaltung.model.dto.GradeBatchItemDTO;
+import ch.notenverwaltung.model.dto.GradeBatchResponseDTO;
+import ch.notenverwaltung.model.dto.GradeBatchResultDTO;
 import ch.notenverwaltung.model.dto.GradeDTO;
-import ch.notenverwaltung.model.dto.GradeItemDTO;
+import ch.notenverwaltung.model.dto.GradeViewDTO;
 import ch.notenverwaltung.model.dto.SemesterGradeRow;
+import ch.notenverwaltung.model.dto.SemesterSummaryRow;
 import ch.notenverwaltung.model.dto.StudentSemesterResultDTO;
 import ch.notenverwaltung.model.dto.SubjectResultDTO;
 import ch.notenverwaltung.model.entity.Grade;
 import ch.notenverwaltung.model.entity.User;
 import ch.notenverwaltung.model.entity.TestEntity;
+import ch.notenverwaltung.model.entity.UuidV7Generator;
+import ch.notenverwaltung.repository.GradeCursor;
+import ch.notenverwaltung.repository.GradeFilter;
 import ch.notenverwaltung.repository.GradeRepository;
+import ch.notenverwaltung.repository.GradeSpecifications;
 import ch.notenverwaltung.repository.UserRepository;
 import ch.notenverwaltung.repository.TestRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -28,10 +47,16 @@ public class GradeService {
     private final GradeRepository gradeRepository;
     private final UserRepository userRepository;
     private final TestRepository testRepository;
+    private final GradeAggregateService gradeAggregateService;
+    private final SemesterGradeAggregator semesterGradeAggregator;
+    private final SemesterReportCache semesterReportCache;
+
+    @Value("${spring.grades.batch.max-rows:5000}")
+    private int maxBatchRows;
 
     @Transactional(readOnly = true)
     public List<GradeDTO> getAll() {
-        return gradeRepository.findAll().stream().map(this::toDTO).collect(Collectors.toList());
+        return gradeRepository.findAll().stream().map(GradeService::toDTO).collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
@@ -41,108 +66,138 @@ public class GradeService {
                                                               java.math.BigDecimal valueMin,
                                                               java.math.BigDecimal valueMax,
                                                               boolean isAdmin,
-                                                              String username) {
-        org.springframework.data.domain.Page<Grade> page;
-        if (studentId != null) {
-            page = gradeRepository.findByStudent_Id(studentId, pageable);
-        } else if (!isAdmin) {
-            java.util.UUID currentUserId = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new jakarta.persistence.EntityNotFoundException("User not found: " + username))
-                    .getId();
-            page = gradeRepository.findByStudent_Id(currentUserId, pageable);
-        } else {
-            page = gradeRepository.findAll(pageable);
+                                                              UUID currentUserId) {
+        GradeFilter filter = gradeFilter(studentId, testId, valueMin, valueMax, isAdmin, currentUserId);
+        return gradeRepository.findAll(GradeSpecifications.matching(filter), pageable).map(GradeService::toDTO);
+    }
+
+    /**
+     * Keyset variant of {@link #find}: returns the grades after {@code cursor} in the order
+     * (createdOn DESC, id DESC). A null cursor starts at the newest grade. No count query is issued.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<GradeDTO> findByCursor(String cursor,
+                                                int size,
+                                                UUID studentId,
+                                                UUID testId,
+                                                BigDecimal valueMin,
+                                                BigDecimal valueMax,
+                                                boolean isAdmin,
+                                                UUID currentUserId) {
+        GradeFilter filter = gradeFilter(studentId, testId, valueMin, valueMax, isAdmin, currentUserId);
+        return keysetPage(filter, cursor, size,
+                (spec, limit) -> gradeRepository.findKeysetPage(spec, limit).stream().map(GradeService::toDTO).collect(Collectors.toList()),
+                dto -> new GradeCursor(dto.getCreatedOn(), dto.getId()));
+    }
+
+    private GradeFilter gradeFilter(UUID studentId, UUID testId, BigDecimal valueMin, BigDecimal valueMax,
+                                    boolean isAdmin, UUID currentUserId) {
+        UUID effectiveStudentId = studentId;
+        if (effectiveStudentId == null && !isAdmin) {
+            effectiveStudentId = currentUserId;
         }
-        java.util.List<GradeDTO> content = page.getContent().stream()
-                .filter(g -> testId == null || (g.getTest() != null && g.getTest().getId().equals(testId)))
-                .filter(g -> valueMin == null || g.getValue().compareTo(valueMin) >= 0)
-                .filter(g -> valueMax == null || g.getValue().compareTo(valueMax) <= 0)
-                .map(this::toDTO)
-                .collect(java.util.stream.Collectors.toList());
-        return new org.springframework.data.domain.PageImpl<>(content, pageable, page.getTotalElements());
+        return GradeFilter.builder()
+                .studentId(effectiveStudentId)
+                .testId(testId)
+                .valueMin(valueMin)
+                .valueMax(valueMax)
+                .build();
+    }
+
+    private <T> CursorPageDTO<T> keysetPage(GradeFilter filter, String cursor, int size,
+                                            BiFunction<Specification<Grade>, Integer, List<T>> query,
+                                            Function<T, GradeCursor> position) {
+        Specification<Grade> spec = GradeSpecifications.matching(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(GradeSpecifications.after(GradeCursor.decode(cursor)));
+        }
+        // Read one extra row to find out whether another page follows
+        List<T> rows = query.apply(spec, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? position.apply(content.get(content.size() - 1)).encode() : null;
+        return CursorPageDTO.<T>builder()
+                .content(content)
+                .size(size)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Transactional(readOnly = true)
     public List<StudentSemesterResultDTO> getSemesterGrades(UUID semesterId, UUID studentId) {
-        List<SemesterGradeRow> rows = gradeRepository.findSemesterGrades(semesterId, studentId);
-        // Group by student
-        Map<UUID, List<SemesterGradeRow>> byStudent = rows.stream()
-                .collect(Collectors.groupingBy(SemesterGradeRow::getStudentId, LinkedHashMap::new, Collectors.toList()));
+        return semesterReportCache.get(semesterId, studentId, false,
+                () -> semesterGradeAggregator.aggregate(gradeRepository.findSemesterGrades(semesterId, studentId)));
+    }
 
-        List<StudentSemesterResultDTO> result = new ArrayList<>();
-        for (Map.Entry<UUID, List<SemesterGradeRow>> studentEntry : byStudent.entrySet()) {
-            UUID sId = studentEntry.getKey();
-            List<SemesterGradeRow> sRows = studentEntry.getValue();
-            String firstName = sRows.stream().map(SemesterGradeRow::getStudentFirstName).filter(Objects::nonNull).findFirst().orElse(null);
-            String lastName = sRows.stream().map(SemesterGradeRow::getStudentLastName).filter(Objects::nonNull).findFirst().orElse(null);
-
-            // Group by subject
-            Map<UUID, List<SemesterGradeRow>> bySubject = sRows.stream()
-                    .collect(Collectors.groupingBy(SemesterGradeRow::getSubjectId, LinkedHashMap::new, Collectors.toList()));
-
-            List<SubjectResultDTO> subjects = new ArrayList<>();
-            BigDecimal totalWeightedSum = BigDecimal.ZERO;
-            BigDecimal totalWeight = BigDecimal.ZERO;
-
-            for (Map.Entry<UUID, List<SemesterGradeRow>> subjEntry : bySubject.entrySet()) {
-                UUID subjId = subjEntry.getKey();
-                List<SemesterGradeRow> subjRows = subjEntry.getValue();
-                String subjectName = subjRows.stream().map(SemesterGradeRow::getSubjectName).filter(Objects::nonNull).findFirst().orElse(null);
-
-                List<GradeItemDTO> gradeItems = subjRows.stream().map(r ->
-                        GradeItemDTO.builder()
-                                .gradeId(r.getGradeId())
-                                .testId(r.getTestId())
-                                .testName(r.getTestName())
-                                .testDate(r.getTestDate())
-                                .value(r.getValue())
-                                .weight(r.getWeight())
-                                .gradeComment(r.getGradeComment())
-                                .build()
-                ).collect(Collectors.toList());
-
-                BigDecimal subjectWeightedSum = subjRows.stream()
-                        .map(r -> safe(r.getValue()).multiply(safe(r.getWeight())))
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                BigDecimal subjectWeight = subjRows.stream()
-                        .map(r -> safe(r.getWeight()))
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                BigDecimal subjectAvg = subjectWeight.compareTo(BigDecimal.ZERO) == 0 ? null : subjectWeightedSum.divide(subjectWeight, 2, RoundingMode.HALF_UP);
-
-                if (subjectWeight.compareTo(BigDecimal.ZERO) > 0) {
-                    totalWeightedSum = totalWeightedSum.add(subjectWeightedSum);
-                    totalWeight = totalWeight.add(subjectWeight);
-                }
+    /**
+     * Streaming variant of {@link #getSemesterGrades}: rows are read ordered by student with a JDBC
+     * fetch size, and each student's result is handed to {@code sink} as soon as the next student
+     * starts, so only one student's grades are held in memory at a time.
+     */
+    @Transactional(readOnly = true)
+    public void streamSemesterGrades(UUID semesterId, UUID studentId, Consumer<StudentSemesterResultDTO> sink) {
+        try (Stream<SemesterGradeRow> rows = gradeRepository.streamSemesterGrades(semesterId, studentId)) {
+            semesterGradeAggregator.aggregate(rows.iterator(), sink);
+        }
+    }
+
+    /**
+     * Averages-only variant of {@link #getSemesterGrades}: reads the maintained per-subject sums
+     * (see {@link GradeAggregateService}) instead of individual grades, none are returned.
+     */
+    @Transactional(readOnly = true)
+    public List<StudentSemesterResultDTO> getSemesterSummary(UUID semesterId, UUID studentId) {
+        return semesterReportCache.get(semesterId, studentId, true, () -> loadSemesterSummary(semesterId, studentId));
+    }
 
+    private List<StudentSemesterResultDTO> loadSemesterSummary(UUID semesterId, UUID studentId) {
+        List<StudentSemesterResultDTO> result = new ArrayList<>();
+        List<SubjectResultDTO> subjects = new ArrayList<>();
+        BigDecimal positiveWeightedSum = BigDecimal.ZERO;
+        BigDecimal positiveWeight = BigDecimal.ZERO;
+        boolean negativeSubjectWeight = false;
+        for (SemesterSummaryRow row : gradeRepository.findSemesterSummary(semesterId, studentId)) {
+            if (!row.isStudentTotal()) {
                 subjects.add(SubjectResultDTO.builder()
-                        .subjectId(subjId)
-                        .subjectName(subjectName)
-                        .calculatedGrade(subjectAvg)
-                        .grades(gradeItems)
+                        .subjectId(row.getSubjectId())
+                        .subjectName(row.getSubjectName())
+                        .calculatedGrade(average(row.getWeightedSum(), row.getWeightSum()))
                         .build());
+                if (row.getWeightSum().signum() > 0) {
+                    positiveWeightedSum = positiveWeightedSum.add(row.getWeightedSum());
+                    positiveWeight = positiveWeight.add(row.getWeightSum());
+                } else if (row.getWeightSum().signum() < 0) {
+                    negativeSubjectWeight = true;
+                }
+                continue;
             }
-
-            BigDecimal overall = totalWeight.compareTo(BigDecimal.ZERO) == 0 ? null : totalWeightedSum.divide(totalWeight, 2, RoundingMode.HALF_UP);
-
-            StudentSemesterResultDTO dto = StudentSemesterResultDTO.builder()
-                    .studentId(sId)
-                    .studentFirstName(firstName)
-                    .studentLastName(lastName)
+            // The rollup row sums all subjects; the full report only counts subjects with a positive
+            // weight, which differs only if a subject's weights add up to a negative number.
+            BigDecimal overall = negativeSubjectWeight
+                    ? average(positiveWeightedSum, positiveWeight)
+                    : average(row.getWeightedSum(), row.getWeightSum());
+            result.add(StudentSemesterResultDTO.builder()
+                    .studentId(row.getStudentId())
+                    .studentFirstName(row.getStudentFirstName())
+                    .studentLastName(row.getStudentLastName())
                     .overallGrade(overall)
                     .subjects(subjects)
-                    .build();
-            result.add(dto);
+                    .build());
+            subjects = new ArrayList<>();
+            positiveWeightedSum = BigDecimal.ZERO;
+            positiveWeight = BigDecimal.ZERO;
+            negativeSubjectWeight = false;
         }
         return result;
     }
 
-    private BigDecimal safe(BigDecimal v) {
-        return v == null ? BigDecimal.ZERO : v;
+    private BigDecimal average(BigDecimal weightedSum, BigDecimal weight) {
+        return weight.compareTo(BigDecimal.ZERO) == 0 ? null : weightedSum.divide(weight, 2, RoundingMode.HALF_UP);
     }
 
     @Transactional(readOnly = true)
     public GradeDTO getById(UUID id) {
-        return gradeRepository.findById(id).map(this::toDTO)
+        return gradeRepository.findById(id).map(GradeService::toDTO)
                 .orElseThrow(() -> new EntityNotFoundException("Grade not found with id: " + id));
     }
 
@@ -162,13 +217,203 @@ public class GradeService {
                 .student(student)
                 .test(test)
                 .build();
-        return toDTO(gradeRepository.save(entity));
+        Grade saved = gradeRepository.save(entity);
+        gradeAggregateService.add(saved);
+        evictReports(saved);
+        return toDTO(saved);
+    }
+
+    /**
+     * Saves a student's grade for a test with a single INSERT ... ON CONFLICT, without reading the
+     * grade first. The first submission creates the grade. With {@code overwrite} a repeated one
+     * overwrites value, weight and comment of that grade instead of adding a second one; without
+     * it the existing grade is left alone. Grades without a test are always created, see
+     * {@link #create}.
+     *
+     * @throws AlreadyExistsException if the student already has a grade for the test and
+     *                                {@code overwrite} is false
+     */
+    @Transactional
+    public Upserted upsert(GradeDTO dto, boolean overwrite) {
+        if (dto.getTestId() == null) {
+            return new Upserted(create(dto), true);
+        }
+        if (!userRepository.existsById(dto.getStudentId())) {
+            throw new EntityNotFoundException("User not found with id: " + dto.getStudentId());
+        }
+        TestEntity test = testRepository.findById(dto.getTestId())
+                .orElseThrow(() -> new EntityNotFoundException("Test not found with id: " + dto.getTestId()));
+        Upserted saved = upsert(dto, test, overwrite);
+        if (saved == null) {
+            throw new AlreadyExistsException("Grade of student " + dto.getStudentId() + " for test " + dto.getTestId() + " already exists");
+        }
+        return saved;
+    }
+
+    // Upsert of a grade whose student is known to exist, for callers that validated in bulk. Returns
+    // null instead of throwing if the grade exists and overwrite is false, so that the caller's
+    // transaction stays usable.
+    Upserted upsert(GradeDTO dto, TestEntity test, boolean overwrite) {
+        if (!overwrite) {
+            return insert(dto, test);
+        }
+        Object[] row = gradeRepository.upsert(UuidV7Generator.next(), dto.getStudentId(), dto.getTestId(),
+                dto.getValue(), dto.getWeight(), dto.getComment()).get(0);
+        boolean inserted = (Boolean) row[2];
+        BigDecimal previousValue = (BigDecimal) row[3];
+        UUID semesterSubjectId = test.getSemesterSubject().getId();
+        if (!inserted && previousValue == null) {
+            // A concurrent transaction inserted the grade after this statement's snapshot, so the
+            // replaced values are unknown
+            gradeAggregateService.rebuild(List.of(semesterSubjectId));
+        } else {
+            gradeAggregateService.replace(dto.getStudentId(), semesterSubjectId, previousValue, (BigDecimal) row[4],
+                    dto.getValue(), dto.getWeight());
+        }
+        semesterReportCache.evictStudent(test.getSemesterSubject().getSemester().getId(), dto.getStudentId());
+        return new Upserted(saved(dto, row), inserted);
+    }
+
+    private Upserted insert(GradeDTO dto, TestEntity test) {
+        List<Object[]> rows = gradeRepository.insertIfAbsent(UuidV7Generator.next(), dto.getStudentId(), dto.getTestId(),
+                dto.getValue(), dto.getWeight(), dto.getComment());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        gradeAggregateService.replace(dto.getStudentId(), test.getSemesterSubject().getId(), null, null,
+                dto.getValue(), dto.getWeight());
+        semesterReportCache.evictStudent(test.getSemesterSubject().getSemester().getId(), dto.getStudentId());
+        return new Upserted(saved(dto, rows.get(0)), true);
+    }
+
+    // The saved grade from the submitted one and the returned [id, created_on]
+    private static GradeDTO saved(GradeDTO dto, Object[] row) {
+        return GradeDTO.builder()
+                .id((UUID) row[0])
+                .value(dto.getValue())
+                .weight(dto.getWeight())
+                .comment(dto.getComment())
+                .studentId(dto.getStudentId())
+                .testId(dto.getTestId())
+                .createdOn(row[1] instanceof Timestamp ts ? ts.toLocalDateTime() : (LocalDateTime) row[1])
+                .build();
+    }
+
+    public record Upserted(GradeDTO grade, boolean created) {
+    }
+
+    /**
+     * Creates the grades of one test in a single transaction. The students are checked with one IN
+     * query and the inserts are sent as JDBC batches (see spring.jpa.properties.hibernate.jdbc).
+     * Empty rows, rows without student, value or weight, with a value, weight or comment that does
+     * not fit the grades table, with an unknown student or repeating a student of the batch are
+     * rejected individually; the others are saved, overwriting the student's existing grade for
+     * the test if there is one. The test's aggregates are rebuilt once instead of per grade.
+     *
+     * @throws InvalidGradeException if the batch has more than spring.grades.batch.max-rows rows
+     */
+    @Transactional
+    public GradeBatchResponseDTO createBatch(UUID testId, List<GradeBatchItemDTO> items) {
+        if (items.size() > maxBatchRows) {
+            throw new InvalidGradeException("A batch may contain at most " + maxBatchRows + " grades");
+        }
+        TestEntity test = testRepository.findById(testId)
+                .orElseThrow(() -> new EntityNotFoundException("Test not found with id: " + testId));
+        Set<UUID> studentIds = items.stream()
+                .filter(Objects::nonNull)
+                .map(GradeBatchItemDTO::getStudentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<UUID> students = new HashSet<>(userRepository.findIdsByIdIn(studentIds));
+        Map<UUID, Grade> existing = gradeRepository.findByTest_IdAndStudent_IdIn(testId, studentIds).stream()
+                .collect(Collectors.toMap(g -> g.getStudent().getId(), Function.identity()));
+
+        List<GradeBatchResultDTO> results = new ArrayList<>(items.size());
+        List<Grade> grades = new ArrayList<>(items.size());
+        List<GradeBatchResultDTO> createdResults = new ArrayList<>(items.size());
+        Set<UUID> seen = new HashSet<>();
+        int updated = 0;
+        for (int i = 0; i < items.size(); i++) {
+            GradeBatchItemDTO item = items.get(i);
+            GradeBatchResultDTO result = GradeBatchResultDTO.builder()
+                    .index(i)
+                    .studentId(item != null ? item.getStudentId() : null)
+                    .build();
+            results.add(result);
+            String error = validate(item, students);
+            if (error == null && !seen.add(item.getStudentId())) {
+                error = "Duplicate studentId in batch";
+            }
+            if (error != null) {
+                result.setStatus(GradeBatchResultDTO.Status.REJECTED);
+                result.setError(error);
+                continue;
+            }
+            // A student has one grade per test: re-entered grades overwrite the existing one
+            Grade grade = existing.get(item.getStudentId());
+            if (grade != null) {
+                grade.setValue(item.getValue());
+                grade.setWeight(item.getWeight());
+                grade.setComment(item.getComment());
+                result.setStatus(GradeBatchResultDTO.Status.UPDATED);
+                result.setGradeId(grade.getId());
+                updated++;
+                continue;
+            }
+            grades.add(Grade.builder()
+                    .value(item.getValue())
+                    .weight(item.getWeight())
+                    .comment(item.getComment())
+                    .student(userRepository.getReferenceById(item.getStudentId()))
+                    .test(test)
+                    .build());
+            createdResults.add(result);
+        }
+
+        if (!grades.isEmpty() || updated > 0) {
+            gradeRepository.saveAll(grades);
+            gradeRepository.flush();
+            for (int i = 0; i < grades.size(); i++) {
+                createdResults.get(i).setStatus(GradeBatchResultDTO.Status.CREATED);
+                createdResults.get(i).setGradeId(grades.get(i).getId());
+            }
+            gradeAggregateService.rebuild(List.of(test.getSemesterSubject().getId()));
+            semesterReportCache.evictSemester(test.getSemesterSubject().getSemester().getId());
+        }
+        return GradeBatchResponseDTO.builder()
+                .testId(testId)
+                .created(grades.size())
+                .updated(updated)
+                .rejected(items.size() - grades.size() - updated)
+                .results(results)
+                .build();
+    }
+
+    private static String validate(GradeBatchItemDTO item, Set<UUID> students) {
+        if (item == null) {
+            return "empty row";
+        }
+        if (item.getStudentId() == null) {
+            return "studentId is required";
+        }
+        if (!students.contains(item.getStudentId())) {
+            return "User not found with id: " + item.getStudentId();
+        }
+        if (item.getValue() == null) {
+            return "value is required";
+        }
+        if (item.getWeight() == null) {
+            return "weight is required";
+        }
+        return GradeValues.check(item.getValue(), item.getWeight(), item.getComment());
     }
 
     @Transactional
     public GradeDTO update(UUID id, GradeDTO dto) {
-        Grade entity = gradeRepository.findById(id)
+        Grade entity = gradeRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new EntityNotFoundException("Grade not found with id: " + id));
+        gradeAggregateService.remove(entity);
+        evictReports(entity);
         entity.setValue(dto.getValue());
         entity.setWeight(dto.getWeight());
         entity.setComment(dto.getComment());
@@ -180,18 +425,30 @@ public class GradeService {
             entity.setTest(testRepository.findById(dto.getTestId())
                     .orElseThrow(() -> new EntityNotFoundException("Test not found with id: " + dto.getTestId())));
         }
-        return toDTO(gradeRepository.save(entity));
+        Grade saved = gradeRepository.save(entity);
+        gradeAggregateService.add(saved);
+        evictReports(saved);
+        return toDTO(saved);
     }
 
     @Transactional
     public void delete(UUID id) {
-        if (!gradeRepository.existsById(id)) {
-            throw new EntityNotFoundException("Grade not found with id: " + id);
+        Grade entity = gradeRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new EntityNotFoundException("Grade not found with id: " + id));
+        gradeAggregateService.remove(entity);
+        evictReports(entity);
+        gradeRepository.delete(entity);
+    }
+
+    // Grades without a test belong to no semester and never appear in a report
+    private void evictReports(Grade grade) {
+        if (grade.getTest() != null) {
+            semesterReportCache.evictStudent(grade.getTest().getSemesterSubject().getSemester().getId(),
+                    grade.getStudent().getId());
         }
-        gradeRepository.deleteById(id);
     }
 
-    private GradeDTO toDTO(Grade g) {
+    static GradeDTO toDTO(Grade g) {
         return GradeDTO.builder()
                 .id(g.getId())
                 .value(g.getValue())
@@ -211,36 +468,37 @@ public class GradeService {
             java.math.BigDecimal valueMin,
             java.math.BigDecimal valueMax,
             boolean isAdmin,
-            String currentUsername
+            UUID currentUserId
     ) {
-        org.springframework.data.domain.Page<Grade> page;
-        if (!isAdmin) {
-            java.util.UUID currentUserId = userRepository.findByUsername(currentUsername)
-                    .orElseThrow(() -> new jakarta.persistence.EntityNotFoundException("User not found: " + currentUsername))
-                    .getId();
-            page = gradeRepository.findByStudent_Id(currentUserId, pageable);
-        } else {
-            page = gradeRepository.findAll(pageable);
-        }
-        java.util.List<ch.notenverwaltung.model.dto.GradeViewDTO> content = page.getContent().stream()
-                .filter(g -> studentUsername == null || studentUsername.isBlank() || (g.getStudent() != null && g.getStudent().getUsername() != null && g.getStudent().getUsername().toLowerCase().contains(studentUsername.toLowerCase())))
-                .filter(g -> testName == null || testName.isBlank() || (g.getTest() != null && g.getTest().getName() != null && g.getTest().getName().toLowerCase().contains(testName.toLowerCase())))
-                .filter(g -> valueMin == null || g.getValue().compareTo(valueMin) >= 0)
-                .filter(g -> valueMax == null || g.getValue().compareTo(valueMax) <= 0)
-                .map(this::toViewDTO)
-                .collect(java.util.stream.Collectors.toList());
-        return new org.springframework.data.domain.PageImpl<>(content, pageable, page.getTotalElements());
+        GradeFilter filter = viewFilter(studentUsername, testName, valueMin, valueMax, isAdmin, currentUserId);
+        return gradeRepository.findViewPage(GradeSpecifications.matching(filter), pageable);
     }
 
-    private ch.notenverwaltung.model.dto.GradeViewDTO toViewDTO(Grade g) {
-        return ch.notenverwaltung.model.dto.GradeViewDTO.builder()
-                .id(g.getId())
-                .value(g.getValue())
-                .weight(g.getWeight())
-                .comment(g.getComment())
-                .studentUsername(g.getStudent() != null ? g.getStudent().getUsername() : null)
-                .testName(g.getTest() != null ? g.getTest().getName() : null)
-                .createdOn(g.getCreatedOn())
+    /**
+     * Keyset variant of {@link #findView}, see {@link #findByCursor}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<GradeViewDTO> findViewByCursor(String cursor,
+                                                        int size,
+                                                        String studentUsername,
+                                                        String testName,
+                                                        BigDecimal valueMin,
+                                                        BigDecimal valueMax,
+                                                        boolean isAdmin,
+                                                        UUID currentUserId) {
+        GradeFilter filter = viewFilter(studentUsername, testName, valueMin, valueMax, isAdmin, currentUserId);
+        return keysetPage(filter, cursor, size, gradeRepository::findViewKeysetPage,
+                dto -> new GradeCursor(dto.getCreatedOn(), dto.getId()));
+    }
+
+    private GradeFilter viewFilter(String studentUsername, String testName, BigDecimal valueMin, BigDecimal valueMax,
+                                   boolean isAdmin, UUID currentUserId) {
+        return GradeFilter.builder()
+                .studentId(isAdmin ? null : currentUserId)
+                .studentUsername(studentUsername)
+                .testName(testName)
+                .valueMin(valueMin)
+                .valueMax(valueMax)
                 .build();
     }
 }
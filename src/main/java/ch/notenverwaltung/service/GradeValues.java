@@ -0,0 +1,46 @@
+package ch.notenverwaltung.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Column limits of grades: value and weight are NUMERIC(5,2), the comment is VARCHAR(255).
+ * Checked before writing, so that a grade that does not fit is rejected on its own instead of
+ * failing the statement or transaction it shares with other grades.
+ */
+final class GradeValues {
+
+    static final int MAX_COMMENT_LENGTH = 255;
+
+    private static final BigDecimal MAX_NUMERIC = new BigDecimal("1000");
+
+    private GradeValues() {
+    }
+
+    // At most two decimals and an absolute value below 1000; the value with scale 2, or null
+    static BigDecimal numeric(BigDecimal value) {
+        try {
+            BigDecimal scaled = value.setScale(2, RoundingMode.UNNECESSARY);
+            return scaled.abs().compareTo(MAX_NUMERIC) < 0 ? scaled : null;
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns why the non-null value and weight and the optional comment cannot be stored, or
+     * null if they can.
+     */
+    static String check(BigDecimal value, BigDecimal weight, String comment) {
+        if (numeric(value) == null) {
+            return "invalid value " + value.toPlainString() + ": at most two decimals, below 1000";
+        }
+        if (numeric(weight) == null) {
+            return "invalid weight " + weight.toPlainString() + ": at most two decimals, below 1000";
+        }
+        if (comment != null && comment.length() > MAX_COMMENT_LENGTH) {
+            return "comment longer than " + MAX_COMMENT_LENGTH + " characters";
+        }
+        return null;
+    }
+}
@@ -1,35 +1,82 @@
 package ch.notenverwaltung.service;
 
+import ch.notenverwaltung.model.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class JwtTokenProvider {
 
-    @Value("${spring.jwt.secret:${JWT_SECRET:defaultSecretKeyForProductionOverride}}")
-    private String secret;
-
-    @Value("${spring.jwt.expiration:${JWT_EXPIRATION:86400000}}")
-    private long expiration;
-
-    private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    public static final String ROLES_CLAIM = "roles";
+    public static final String ROLE_VERSION_CLAIM = "rv";
+    public static final String USER_ID_CLAIM = "uid";
+
+    private final long expiration;
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    // SHA-256 of the token -> verified claims, each entry expiring with its token
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtTokenProvider(@Value("${spring.jwt.secret:${JWT_SECRET:defaultSecretKeyForProductionOverride}}") String secret,
+                            @Value("${spring.jwt.expiration:${JWT_EXPIRATION:900000}}") long expiration,
+                            @Value("${spring.jwt.verified-cache.max-size:10000}") long verifiedCacheSize,
+                            MeterRegistry meterRegistry) {
+        this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), value.getExpiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verifiedTokens");
     }
 
     public String generateToken(String username) {
@@ -42,13 +89,17 @@ public class JwtTokenProvider {
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
-        claims.put("roles", roles);
+        claims.put(ROLES_CLAIM, roles);
+        if (userDetails instanceof User user) {
+            claims.put(USER_ID_CLAIM, user.getId().toString());
+            claims.put(ROLE_VERSION_CLAIM, user.getRoleVersion());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
     public String generateToken(String username, Collection<String> roles) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", roles);
+        claims.put(ROLES_CLAIM, roles);
         return createToken(claims, username);
     }
 
@@ -58,13 +109,70 @@ public class JwtTokenProvider {
 
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verifies signature and expiry once and returns the token's claims, or empty if the token is
+     * invalid or expired. Tokens seen before are answered from a cache keyed by their SHA-256 digest
+     * without repeating the HMAC check.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached.isExpired(Instant.now()) ? Optional.empty() : Optional.of(cached);
+        }
+        VerifiedToken verified;
+        try {
+            verified = toVerifiedToken(parser.parseClaimsJws(token).getBody());
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        // Tokens without an expiry are not cached
+        if (verified.getExpiresAt() != null) {
+            verifiedTokens.put(digest, verified);
+        }
+        return Optional.of(verified);
+    }
+
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        List<String> roles = null;
+        if (claims.get(ROLES_CLAIM) instanceof Collection<?> values) {
+            roles = new ArrayList<>(values.size());
+            for (Object value : values) {
+                roles.add(String.valueOf(value));
+            }
+        }
+        Long roleVersion = claims.get(ROLE_VERSION_CLAIM) instanceof Number n ? n.longValue() : null;
+        UUID userId = claims.get(USER_ID_CLAIM) instanceof String uid ? UUID.fromString(uid) : null;
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                userId,
+                roles,
+                roleVersion,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -79,23 +187,10 @@ public class JwtTokenProvider {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
-        }
+        return verify(token).isPresent();
     }
 }
@@ -0,0 +1,120 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.exception.InvalidRefreshTokenException;
+import ch.notenverwaltung.model.entity.RefreshToken;
+import ch.notenverwaltung.model.entity.User;
+import ch.notenverwaltung.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens. Each exchange marks the presented token as used and
+ * returns a new one from the same family; presenting a used or revoked token again revokes the
+ * whole family, so a stolen token works at most until its legitimate owner refreshes.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration refreshExpiration;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${spring.jwt.refresh-expiration:14d}") Duration refreshExpiration) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshExpiration = refreshExpiration;
+    }
+
+    /**
+     * Starts a new token family for a fresh login and returns the raw token for the client.
+     */
+    @Transactional
+    public String issue(User user) {
+        return store(user, UUID.randomUUID());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one. Revocations caused by a reused token are committed
+     * even though the call fails.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Unknown refresh token"));
+        if (current.isRevoked() || current.getUsedAt() != null) {
+            log.warn("Refresh token reuse detected, revoking token family {}", current.getFamilyId());
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!now.isBefore(current.getExpiresAt())) {
+            throw new InvalidRefreshTokenException("Refresh token expired");
+        }
+        User user = current.getUser();
+        if (!user.isEnabled()) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw new InvalidRefreshTokenException("User is disabled");
+        }
+        current.setUsedAt(now);
+        return new Rotation(user, store(user, current.getFamilyId()));
+    }
+
+    /**
+     * Revokes the token's family (logout). Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeAll(UUID userId) {
+        refreshTokenRepository.revokeAllByUserId(userId);
+    }
+
+    private String store(User user, UUID familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .user(user)
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .createdAt(now)
+                .expiresAt(now.plus(refreshExpiration))
+                .build());
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The user the token belongs to and the refresh token replacing the presented one.
+     */
+    public record Rotation(User user, String refreshToken) {
+    }
+}
@@ -5,6 +5,7 @@ import ch.notenverwaltung.model.entity.SchoolClass;
 import ch.notenverwaltung.model.entity.SemesterSubject;
 import ch.notenverwaltung.repository.SchoolClassRepository;
 import ch.notenverwaltung.repository.SemesterSubjectRepository;
+import ch.notenverwaltung.repository.TestRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -20,6 +21,9 @@ public class SchoolClassService {
 
     private final SchoolClassRepository schoolClassRepository;
     private final SemesterSubjectRepository semesterSubjectRepository;
+    private final TestRepository testRepository;
+    private final GradeAggregateService gradeAggregateService;
+    private final SemesterReportCache semesterReportCache;
 
     @Transactional(readOnly = true)
     public List<ClassDTO> getAll() {
@@ -64,7 +68,12 @@ public class SchoolClassService {
         if (!schoolClassRepository.existsById(id)) {
             throw new EntityNotFoundException("Class not found with id: " + id);
         }
+        // Tests and their grades are removed by cascade; rebuild the aggregates they contributed to
+        List<UUID> semesterSubjectIds = testRepository.findSemesterSubjectIdsByClassId(id);
+        testRepository.findSemesterIdsByClassId(id).forEach(semesterReportCache::evictSemester);
         schoolClassRepository.deleteById(id);
+        schoolClassRepository.flush();
+        gradeAggregateService.rebuild(semesterSubjectIds);
     }
 
     private ClassDTO toDTO(SchoolClass c) {
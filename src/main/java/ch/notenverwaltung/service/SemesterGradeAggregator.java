@@ -0,0 +1,171 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.dto.GradeItemDTO;
+import ch.notenverwaltung.model.dto.SemesterGradeRow;
+import ch.notenverwaltung.model.dto.StudentSemesterResultDTO;
+import ch.notenverwaltung.model.dto.SubjectResultDTO;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Turns semester grade rows into per-student results in a single pass.
+ * <p>
+ * Grade values and weights are NUMERIC(5,2), so they are accumulated as longs scaled by 100
+ * (products scaled by 10^4) instead of BigDecimal. Averages are rounded HALF_UP to two decimals,
+ * which gives exactly the same values (and scale) as {@code BigDecimal.divide(divisor, 2, HALF_UP)}.
+ * Students and subjects keep the order in which they first appear; only subjects with a positive
+ * weight sum count towards the overall grade. Null values and weights count as zero.
+ */
+@Component
+public class SemesterGradeAggregator {
+
+    private static final int SCALE = 2;
+
+    /**
+     * Aggregates rows in any order; students and subjects are grouped by id.
+     */
+    public List<StudentSemesterResultDTO> aggregate(List<SemesterGradeRow> rows) {
+        Map<UUID, StudentAccumulator> students = new LinkedHashMap<>();
+        for (SemesterGradeRow row : rows) {
+            students.computeIfAbsent(row.getStudentId(), StudentAccumulator::new).add(row);
+        }
+        List<StudentSemesterResultDTO> result = new ArrayList<>(students.size());
+        for (StudentAccumulator student : students.values()) {
+            result.add(student.toResult());
+        }
+        return result;
+    }
+
+    /**
+     * Aggregates rows that are ordered (at least grouped) by student and hands each student's
+     * result to {@code sink} as soon as the next student starts.
+     */
+    public void aggregate(Iterator<SemesterGradeRow> rows, Consumer<StudentSemesterResultDTO> sink) {
+        StudentAccumulator current = null;
+        while (rows.hasNext()) {
+            SemesterGradeRow row = rows.next();
+            if (current == null || !current.studentId.equals(row.getStudentId())) {
+                if (current != null) {
+                    sink.accept(current.toResult());
+                }
+                current = new StudentAccumulator(row.getStudentId());
+            }
+            current.add(row);
+        }
+        if (current != null) {
+            sink.accept(current.toResult());
+        }
+    }
+
+    /**
+     * Unscaled value of {@code weightedSum / weightSum} rounded HALF_UP (ties away from zero),
+     * where the dividend is scaled by 10^4 and the divisor by 10^2, so the quotient is scaled by 10^2.
+     */
+    static long roundedQuotient(long weightedSum, long weightSum) {
+        long dividend = Math.abs(weightedSum);
+        long divisor = Math.abs(weightSum);
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder >= divisor - remainder) {
+            quotient++;
+        }
+        return (weightedSum < 0) != (weightSum < 0) ? -quotient : quotient;
+    }
+
+    static BigDecimal average(long weightedSum, long weightSum) {
+        return weightSum == 0 ? null : BigDecimal.valueOf(roundedQuotient(weightedSum, weightSum), SCALE);
+    }
+
+    static long unscaled(BigDecimal v) {
+        // Exact for NUMERIC(5,2); throws if a value ever carries more than two decimals
+        return v == null ? 0L : v.scaleByPowerOfTen(SCALE).longValueExact();
+    }
+
+    private static final class StudentAccumulator {
+        private final UUID studentId;
+        private String firstName;
+        private String lastName;
+        private final Map<UUID, SubjectAccumulator> subjects = new LinkedHashMap<>();
+
+        private StudentAccumulator(UUID studentId) {
+            this.studentId = studentId;
+        }
+
+        private void add(SemesterGradeRow row) {
+            if (firstName == null) {
+                firstName = row.getStudentFirstName();
+            }
+            if (lastName == null) {
+                lastName = row.getStudentLastName();
+            }
+            subjects.computeIfAbsent(row.getSubjectId(), SubjectAccumulator::new).add(row);
+        }
+
+        private StudentSemesterResultDTO toResult() {
+            List<SubjectResultDTO> subjectResults = new ArrayList<>(subjects.size());
+            long totalWeightedSum = 0;
+            long totalWeight = 0;
+            for (SubjectAccumulator subject : subjects.values()) {
+                if (subject.weightSum > 0) {
+                    totalWeightedSum = Math.addExact(totalWeightedSum, subject.weightedSum);
+                    totalWeight = Math.addExact(totalWeight, subject.weightSum);
+                }
+                subjectResults.add(subject.toResult());
+            }
+            return StudentSemesterResultDTO.builder()
+                    .studentId(studentId)
+                    .studentFirstName(firstName)
+                    .studentLastName(lastName)
+                    .overallGrade(average(totalWeightedSum, totalWeight))
+                    .subjects(subjectResults)
+                    .build();
+        }
+    }
+
+    private static final class SubjectAccumulator {
+        private final UUID subjectId;
+        private String subjectName;
+        private long weightedSum; // scaled by 10^4
+        private long weightSum; // scaled by 10^2
+        private final List<GradeItemDTO> grades = new ArrayList<>();
+
+        private SubjectAccumulator(UUID subjectId) {
+            this.subjectId = subjectId;
+        }
+
+        private void add(SemesterGradeRow row) {
+            if (subjectName == null) {
+                subjectName = row.getSubjectName();
+            }
+            long weight = unscaled(row.getWeight());
+            weightedSum = Math.addExact(weightedSum, Math.multiplyExact(unscaled(row.getValue()), weight));
+            weightSum = Math.addExact(weightSum, weight);
+            grades.add(GradeItemDTO.builder()
+                    .gradeId(row.getGradeId())
+                    .testId(row.getTestId())
+                    .testName(row.getTestName())
+                    .testDate(row.getTestDate())
+                    .value(row.getValue())
+                    .weight(row.getWeight())
+                    .gradeComment(row.getGradeComment())
+                    .build());
+        }
+
+        private SubjectResultDTO toResult() {
+            return SubjectResultDTO.builder()
+                    .subjectId(subjectId)
+                    .subjectName(subjectName)
+                    .calculatedGrade(average(weightedSum, weightSum))
+                    .grades(grades)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.dto.StudentSemesterResultDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of semester reports keyed by (semesterId, studentId, summary); studentId is null
+ * for the whole-semester report. Writers evict the affected entries after their transaction
+ * commits. Metrics are published as cache.* with name=semesterReports.
+ */
+@Component
+public class SemesterReportCache {
+
+    static final String CACHE_NAME = "semesterReports";
+
+    private final Cache<Key, List<StudentSemesterResultDTO>> cache;
+
+    // Bumped on every eviction: a report loaded while an eviction happened may be stale and is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public SemesterReportCache(@Value("${spring.grades.report-cache.max-size:500}") long maxSize,
+                               @Value("${spring.grades.report-cache.ttl:10m}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public List<StudentSemesterResultDTO> get(UUID semesterId, UUID studentId, boolean summary,
+                                              Supplier<List<StudentSemesterResultDTO>> loader) {
+        Key key = new Key(semesterId, studentId, summary);
+        List<StudentSemesterResultDTO> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long before = generation.get();
+        List<StudentSemesterResultDTO> loaded = List.copyOf(loader.get());
+        if (generation.get() == before) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Evicts the reports containing the given student in the given semester: the student's own
+     * reports and the whole-semester reports.
+     */
+    public void evictStudent(UUID semesterId, UUID studentId) {
+        afterCommit(k -> k.semesterId().equals(semesterId)
+                && (k.studentId() == null || k.studentId().equals(studentId)));
+    }
+
+    public void evictSemester(UUID semesterId) {
+        afterCommit(k -> k.semesterId().equals(semesterId));
+    }
+
+    public void evictAll() {
+        afterCommit(k -> true);
+    }
+
+    private void afterCommit(Predicate<Key> affected) {
+        AfterCommit.run(() -> evict(affected));
+    }
+
+    private void evict(Predicate<Key> affected) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(affected);
+    }
+
+    private record Key(UUID semesterId, UUID studentId, boolean summary) {
+        private Key {
+            Objects.requireNonNull(semesterId);
+        }
+    }
+}
@@ -23,6 +23,7 @@ public class SemesterSubjectService {
     private final SemesterSubjectRepository semesterSubjectRepository;
     private final SemesterRepository semesterRepository;
     private final SubjectRepository subjectRepository;
+    private final SemesterReportCache semesterReportCache;
 
     @Transactional(readOnly = true)
     public List<SemesterSubjectDTO> getAll() {
@@ -52,21 +53,23 @@ public class SemesterSubjectService {
     public SemesterSubjectDTO update(UUID id, SemesterSubjectDTO dto) {
         SemesterSubject entity = semesterSubjectRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("SemesterSubject not found with id: " + id));
+        semesterReportCache.evictSemester(entity.getSemester().getId());
         Semester semester = semesterRepository.findById(dto.getSemesterId())
                 .orElseThrow(() -> new EntityNotFoundException("Semester not found with id: " + dto.getSemesterId()));
         Subject subject = subjectRepository.findById(dto.getSubjectId())
                 .orElseThrow(() -> new EntityNotFoundException("Subject not found with id: " + dto.getSubjectId()));
         entity.setSemester(semester);
         entity.setSubject(subject);
+        semesterReportCache.evictSemester(semester.getId());
         return toDTO(semesterSubjectRepository.save(entity));
     }
 
     @Transactional
     public void delete(UUID id) {
-        if (!semesterSubjectRepository.existsById(id)) {
-            throw new EntityNotFoundException("SemesterSubject not found with id: " + id);
-        }
-        semesterSubjectRepository.deleteById(id);
+        SemesterSubject entity = semesterSubjectRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("SemesterSubject not found with id: " + id));
+        semesterReportCache.evictSemester(entity.getSemester().getId());
+        semesterSubjectRepository.delete(entity);
     }
 
     private SemesterSubjectDTO toDTO(SemesterSubject ss) {
@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 public class SubjectService {
 
     private final SubjectRepository subjectRepository;
+    private final SemesterReportCache semesterReportCache;
 
     @Transactional(readOnly = true)
     public List<SubjectDTO> getAll() {
@@ -48,6 +49,8 @@ public class SubjectService {
         Subject entity = subjectRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Subject not found with id: " + id));
         entity.setName(dto.getName());
+        // Subject names appear in the reports of every semester that offers the subject
+        semesterReportCache.evictAll();
         return toDTO(subjectRepository.save(entity));
     }
 
@@ -0,0 +1,333 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.exception.AlreadyExistsException;
+import ch.notenverwaltung.model.dto.SyntheticDataRequest;
+import ch.notenverwaltung.repository.PostgresCopyWriter;
+import ch.notenverwaltung.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Generates large, reproducible datasets for load tests and benchmarks and bulk-loads them with
+ * COPY in one transaction.
+ * <p>
+ * Every value is a pure function of (seed, entity kind, index) and every id of (seed, prefix,
+ * entity kind, index), so nothing but the sizes has to be kept in memory: classes and tests are
+ * generated twice, once for their own COPY and once while their grades are streamed. The same
+ * request therefore always yields the same rows and ids, and datasets with the same seed but
+ * different prefixes do not share ids. Ids are time-ordered UUIDv7 like those of
+ * {@link ch.notenverwaltung.model.entity.UuidV7Generator} and increase in COPY order, so the
+ * primary key indexes are built by appending as in production. All generated users share the
+ * password "password", hashed once.
+ */
+@Service
+@Slf4j
+public class SyntheticDataGenerator {
+
+    private static final String PASSWORD = "password";
+    private static final String[] SUBJECT_NAMES = {"Mathematics", "Physics", "Chemistry", "Biology", "German",
+            "English", "French", "History", "Geography", "Economics", "Informatics", "Music", "Art", "Sports"};
+    private static final String[] FIRST_NAMES = {"Liam", "Emma", "Noah", "Olivia", "Ava", "Mia", "Sophia", "Lucas",
+            "Amelia", "Ethan", "Lea", "Nina", "Luca", "Elias", "Lara", "Jonas", "Laura", "Leon", "Sara", "David"};
+    private static final String[] LAST_NAMES = {"Müller", "Meier", "Schneider", "Fischer", "Weber", "Huber",
+            "Keller", "Wagner", "Steiner", "Koch", "Brunner", "Gerber", "Baumann", "Frei", "Zimmermann", "Moser"};
+    private static final LocalDate FIRST_SEMESTER_START = LocalDate.of(2020, 2, 1);
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final long CREATED_AT_MILLIS = CREATED_AT.toInstant(ZoneOffset.UTC).toEpochMilli();
+    private static final long PROGRESS_LOG_INTERVAL = 1_000_000;
+
+    // Entity kinds, mixed into ids and random values
+    private static final long STUDENT = 1, SUBJECT = 2, SEMESTER = 3, SEMESTER_SUBJECT = 4, CLASS = 5, TEST = 6,
+            GRADE = 7, TEST_DATE = 8, GRADE_VALUE = 9, PROFILE = 10;
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final GradeAggregateService gradeAggregateService;
+    private final SemesterReportCache semesterReportCache;
+
+    public SyntheticDataGenerator(UserRepository userRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PasswordEncoder passwordEncoder,
+                                  GradeAggregateService gradeAggregateService,
+                                  SemesterReportCache semesterReportCache) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.gradeAggregateService = gradeAggregateService;
+        this.semesterReportCache = semesterReportCache;
+    }
+
+    /**
+     * Creates the dataset and returns the number of rows per table.
+     *
+     * @throws AlreadyExistsException if a dataset with the same prefix or the same ids exists
+     */
+    @Transactional
+    public Map<String, Object> generate(SyntheticDataRequest request) {
+        long started = System.nanoTime();
+        Dataset d = new Dataset(request);
+        if (userRepository.existsByUsername(d.username(0))) {
+            throw new AlreadyExistsException("A dataset with prefix '" + d.prefix + "' already exists");
+        }
+        // Only on a collision of the prefix hashes, but then every id would clash
+        if (userRepository.existsById(d.id(STUDENT, 0))) {
+            throw new AlreadyExistsException("A dataset with the ids of seed " + d.seed + " and prefix '" + d.prefix
+                    + "' already exists; choose another seed or prefix");
+        }
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("prefix", d.prefix);
+        summary.put("seed", d.seed);
+        Connection connection = DataSourceUtils.getConnection(jdbcTemplate.getDataSource());
+        try {
+            summary.put("users", copyUsers(connection, d, passwordHash));
+            summary.put("subjects", copySubjects(connection, d));
+            summary.put("semesters", copySemesters(connection, d));
+            summary.put("semesterSubjects", copySemesterSubjects(connection, d));
+            summary.put("classes", copyClasses(connection, d));
+            summary.put("tests", copyTests(connection, d));
+            summary.put("grades", copyGrades(connection, d));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Bulk load failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, jdbcTemplate.getDataSource());
+        }
+
+        List<UUID> semesterSubjectIds = new ArrayList<>(d.semesterSubjects());
+        for (int ss = 0; ss < d.semesterSubjects(); ss++) {
+            semesterSubjectIds.add(d.id(SEMESTER_SUBJECT, ss));
+        }
+        gradeAggregateService.rebuild(semesterSubjectIds);
+        semesterReportCache.evictAll();
+
+        summary.put("elapsedMs", (System.nanoTime() - started) / 1_000_000);
+        log.info("Generated dataset {}", summary);
+        return summary;
+    }
+
+    private long copyUsers(Connection connection, Dataset d, String passwordHash) throws SQLException {
+        try (PostgresCopyWriter users = new PostgresCopyWriter(connection, "users (id, username, password, "
+                + "first_name, last_name, email, date_of_birth, active, role_version, created_at, updated_at)")) {
+            for (int s = 0; s < d.students; s++) {
+                long profile = d.random(PROFILE, s);
+                String username = d.username(s);
+                LocalDate dateOfBirth = LocalDate.of(2002, 1, 1).plusDays(Math.floorMod(profile, 7 * 365));
+                users.write(d.id(STUDENT, s), username, passwordHash,
+                        FIRST_NAMES[(int) Math.floorMod(profile >>> 16, FIRST_NAMES.length)],
+                        LAST_NAMES[(int) Math.floorMod(profile >>> 32, LAST_NAMES.length)],
+                        username + "@example.com", dateOfBirth, true, 0, CREATED_AT, CREATED_AT);
+            }
+            users.finish();
+        }
+        try (PostgresCopyWriter roles = new PostgresCopyWriter(connection, "user_roles (user_id, role)")) {
+            for (int s = 0; s < d.students; s++) {
+                roles.write(d.id(STUDENT, s), "ROLE_USER");
+            }
+            roles.finish();
+        }
+        return d.students;
+    }
+
+    private long copySubjects(Connection connection, Dataset d) throws SQLException {
+        try (PostgresCopyWriter subjects = new PostgresCopyWriter(connection, "subjects (id, name)")) {
+            for (int j = 0; j < d.subjects; j++) {
+                subjects.write(d.id(SUBJECT, j), d.subjectName(j));
+            }
+            return subjects.finish();
+        }
+    }
+
+    private long copySemesters(Connection connection, Dataset d) throws SQLException {
+        try (PostgresCopyWriter semesters = new PostgresCopyWriter(connection, "semesters (id, name, start_date, end_date)")) {
+            for (int k = 0; k < d.semesters; k++) {
+                semesters.write(d.id(SEMESTER, k), d.prefix + " SEM-" + (k + 1), d.semesterStart(k),
+                        d.semesterStart(k + 1).minusDays(1));
+            }
+            return semesters.finish();
+        }
+    }
+
+    private long copySemesterSubjects(Connection connection, Dataset d) throws SQLException {
+        try (PostgresCopyWriter semesterSubjects = new PostgresCopyWriter(connection,
+                "semester_subjects (id, semester_id, subject_id)")) {
+            for (int ss = 0; ss < d.semesterSubjects(); ss++) {
+                semesterSubjects.write(d.id(SEMESTER_SUBJECT, ss), d.id(SEMESTER, ss / d.subjects),
+                        d.id(SUBJECT, ss % d.subjects));
+            }
+            return semesterSubjects.finish();
+        }
+    }
+
+    private long copyClasses(Connection connection, Dataset d) throws SQLException {
+        try (PostgresCopyWriter classes = new PostgresCopyWriter(connection, "classes (id, name, semester_subject_id)")) {
+            for (int ss = 0; ss < d.semesterSubjects(); ss++) {
+                for (int cohort = 0; cohort < d.cohorts(); cohort++) {
+                    String name = d.prefix + " K" + (cohort + 1) + " " + d.subjectName(ss % d.subjects);
+                    classes.write(d.id(CLASS, d.classIndex(ss, cohort)),
+                            name.length() > 100 ? name.substring(0, 100) : name, d.id(SEMESTER_SUBJECT, ss));
+                }
+            }
+            return classes.finish();
+        }
+    }
+
+    private long copyTests(Connection connection, Dataset d) throws SQLException {
+        try (PostgresCopyWriter tests = new PostgresCopyWriter(connection,
+                "tests (id, name, date, class_id, semester_subject_id)")) {
+            for (int ss = 0; ss < d.semesterSubjects(); ss++) {
+                for (int cohort = 0; cohort < d.cohorts(); cohort++) {
+                    long classIndex = d.classIndex(ss, cohort);
+                    for (int t = 0; t < d.testsPerClass; t++) {
+                        long testIndex = classIndex * d.testsPerClass + t;
+                        tests.write(d.id(TEST, testIndex), "Test " + (t + 1), d.testDate(ss / d.subjects, testIndex),
+                                d.id(CLASS, classIndex), d.id(SEMESTER_SUBJECT, ss));
+                    }
+                }
+            }
+            return tests.finish();
+        }
+    }
+
+    private long copyGrades(Connection connection, Dataset d) throws SQLException {
+        try (PostgresCopyWriter grades = new PostgresCopyWriter(connection,
+                "grades (id, value, weight, student_id, test_id, created_on)")) {
+            for (int ss = 0; ss < d.semesterSubjects(); ss++) {
+                for (int cohort = 0; cohort < d.cohorts(); cohort++) {
+                    long classIndex = d.classIndex(ss, cohort);
+                    int firstStudent = cohort * d.classSize;
+                    int lastStudent = Math.min(d.students, firstStudent + d.classSize);
+                    for (int t = 0; t < d.testsPerClass; t++) {
+                        long testIndex = classIndex * d.testsPerClass + t;
+                        UUID testId = d.id(TEST, testIndex);
+                        LocalDateTime gradedAt = d.testDate(ss / d.subjects, testIndex).atTime(8, 0);
+                        // The last test of a class counts double
+                        BigDecimal weight = t == d.testsPerClass - 1 && d.testsPerClass > 1 ? BigDecimal.TWO : BigDecimal.ONE;
+                        for (int s = firstStudent; s < lastStudent; s++) {
+                            long gradeIndex = testIndex * d.classSize + (s - firstStudent);
+                            grades.write(d.id(GRADE, gradeIndex), d.gradeValue(gradeIndex), weight,
+                                    d.id(STUDENT, s), testId, gradedAt.plusSeconds(s - firstStudent));
+                            if (grades.getRows() % PROGRESS_LOG_INTERVAL == 0) {
+                                log.info("Generated {} grades", grades.getRows());
+                            }
+                        }
+                    }
+                }
+            }
+            return grades.finish();
+        }
+    }
+
+    /**
+     * Sizes and the deterministic functions deriving values from (seed, kind, index) and ids from
+     * (seed, prefix, kind, index).
+     */
+    private static final class Dataset {
+        private final long seed;
+        private final String prefix;
+        private final long idSeed;
+        private final int students;
+        private final int subjects;
+        private final int semesters;
+        private final int testsPerClass;
+        private final int classSize;
+
+        private Dataset(SyntheticDataRequest request) {
+            this.seed = request.getSeed();
+            this.prefix = request.getPrefix() != null ? request.getPrefix() : "gen-" + request.getSeed();
+            this.idSeed = seed ^ hash(prefix);
+            this.students = request.getStudents();
+            this.subjects = request.getSubjects();
+            this.semesters = request.getSemesters();
+            this.testsPerClass = request.getTestsPerClass();
+            this.classSize = request.getClassSize();
+        }
+
+        private int cohorts() {
+            return (students + classSize - 1) / classSize;
+        }
+
+        private int semesterSubjects() {
+            return semesters * subjects;
+        }
+
+        private long classIndex(int semesterSubject, int cohort) {
+            return (long) semesterSubject * cohorts() + cohort;
+        }
+
+        private String username(int student) {
+            return prefix + "-student-" + (student + 1);
+        }
+
+        private String subjectName(int subject) {
+            String name = SUBJECT_NAMES[subject % SUBJECT_NAMES.length];
+            int round = subject / SUBJECT_NAMES.length;
+            return name + (round > 0 ? " " + (round + 1) : "") + " (" + prefix + ")";
+        }
+
+        private LocalDate semesterStart(int semester) {
+            return FIRST_SEMESTER_START.plusMonths(6L * semester);
+        }
+
+        private LocalDate testDate(int semester, long testIndex) {
+            LocalDate start = semesterStart(semester);
+            long days = semesterStart(semester + 1).toEpochDay() - start.toEpochDay();
+            return start.plusDays(Math.floorMod(random(TEST_DATE, testIndex), days));
+        }
+
+        // Grades 1..6 in steps of 0.1, about 70% of them in [4, 6)
+        private BigDecimal gradeValue(long gradeIndex) {
+            long r = random(GRADE_VALUE, gradeIndex);
+            boolean high = Math.floorMod(r, 10) < 7;
+            long tenths = Math.floorMod(r >>> 8, high ? 20 : 30);
+            return BigDecimal.valueOf((high ? 40 : 10) + tenths, 1);
+        }
+
+        // UUID in version 7 layout: timestamp and counter count up from CREATED_AT with the index,
+        // 4096 ids per millisecond as in UuidV7Generator; the random bits derive from (seed, prefix,
+        // kind, index), so that datasets with the same sizes do not share ids
+        private UUID id(long kind, long index) {
+            long state = (CREATED_AT_MILLIS << 12) + index;
+            long msb = ((state >>> 12) << 16) | 0x7000L | (state & 0xFFF);
+            long lsb = mix(idSeed ^ mix((kind << 56) ^ index));
+            return new UUID(msb, (lsb & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L);
+        }
+
+        private long random(long kind, long index) {
+            return mix(seed ^ mix((kind << 56) ^ index));
+        }
+
+        // 64-bit hash of the prefix, so that ids of datasets with the same seed differ
+        private static long hash(String prefix) {
+            long h = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                h = mix(h ^ prefix.charAt(i));
+            }
+            return mix(h ^ prefix.length());
+        }
+
+        // SplitMix64 finalizer
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
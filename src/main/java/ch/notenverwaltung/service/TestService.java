@@ -23,6 +23,8 @@ public class TestService {
     private final TestRepository testRepository;
     private final SemesterSubjectRepository semesterSubjectRepository;
     private final SchoolClassRepository schoolClassRepository;
+    private final GradeAggregateService gradeAggregateService;
+    private final SemesterReportCache semesterReportCache;
 
     @Transactional(readOnly = true)
     public org.springframework.data.domain.Page<TestDTO> getAll(org.springframework.data.domain.Pageable pageable) {
@@ -55,6 +57,9 @@ public class TestService {
     public TestDTO update(UUID id, TestDTO dto) {
         TestEntity entity = testRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Test not found with id: " + id));
+        UUID previousSemesterSubjectId = entity.getSemesterSubject().getId();
+        // Test name and date are part of the semester report
+        semesterReportCache.evictSemester(entity.getSemesterSubject().getSemester().getId());
         entity.setName(dto.getName());
         entity.setComment(dto.getComment());
         if (dto.getDate() != null) {
@@ -68,15 +73,25 @@ public class TestService {
             entity.setSchoolClass(schoolClassRepository.findById(dto.getClassId())
                     .orElseThrow(() -> new EntityNotFoundException("Class not found with id: " + dto.getClassId())));
         }
-        return toDTO(testRepository.save(entity));
+        TestEntity saved = testRepository.saveAndFlush(entity);
+        semesterReportCache.evictSemester(saved.getSemesterSubject().getSemester().getId());
+        if (!previousSemesterSubjectId.equals(saved.getSemesterSubject().getId())) {
+            // The test's grades moved to another semester subject
+            gradeAggregateService.rebuild(List.of(previousSemesterSubjectId, saved.getSemesterSubject().getId()));
+        }
+        return toDTO(saved);
     }
 
     @Transactional
     public void delete(UUID id) {
-        if (!testRepository.existsById(id)) {
-            throw new EntityNotFoundException("Test not found with id: " + id);
-        }
-        testRepository.deleteById(id);
+        TestEntity entity = testRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Test not found with id: " + id));
+        UUID semesterSubjectId = entity.getSemesterSubject().getId();
+        semesterReportCache.evictSemester(entity.getSemesterSubject().getSemester().getId());
+        // Grades are removed by cascade, so rebuild instead of applying per-grade deltas
+        testRepository.delete(entity);
+        testRepository.flush();
+        gradeAggregateService.rebuild(List.of(semesterSubjectId));
     }
 
     private TestDTO toDTO(TestEntity t) {
@@ -0,0 +1,145 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.entity.TokenRevocation;
+import ch.notenverwaltung.repository.TokenRevocationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation list for access tokens, persisted in token_revocations and mirrored in memory so that
+ * {@link #isRevoked} is two hash lookups. Revocations made by this instance apply as soon as their
+ * transaction commits; revocations made by other instances are picked up by a periodic incremental
+ * reload ({@code spring.jwt.revocation.reload-interval}). Entries are dropped once every token they
+ * cover has expired.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final Duration accessTokenLifetime;
+    private final Duration reloadOverlap;
+
+    // jti -> expiry of that token
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    // user id -> tokens issued at or before this instant are revoked
+    private final Map<UUID, Revocation> revokedUsers = new ConcurrentHashMap<>();
+
+    // created_at of the newest row applied; an occasional lost update only widens the next reload
+    private volatile Instant lastSeen = Instant.EPOCH;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository,
+                                  @Value("${spring.jwt.expiration:${JWT_EXPIRATION:900000}}") long accessTokenExpiration,
+                                  @Value("${spring.jwt.revocation.reload-overlap:1m}") Duration reloadOverlap,
+                                  MeterRegistry meterRegistry) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.accessTokenLifetime = Duration.ofMillis(accessTokenExpiration);
+        this.reloadOverlap = reloadOverlap;
+        Gauge.builder("auth.revocations", revokedTokens, Map::size).tag("kind", "token").register(meterRegistry);
+        Gauge.builder("auth.revocations", revokedUsers, Map::size).tag("kind", "user").register(meterRegistry);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.getTokenId() != null && revokedTokens.containsKey(token.getTokenId())) {
+            return true;
+        }
+        if (token.getUserId() == null || revokedUsers.isEmpty()) {
+            return false;
+        }
+        Revocation revocation = revokedUsers.get(token.getUserId());
+        // iat has second precision: a token issued in the same second as the revocation is revoked too
+        return revocation != null && (token.getIssuedAt() == null || !token.getIssuedAt().isAfter(revocation.before()));
+    }
+
+    /**
+     * Revokes a single token, e.g. on logout. Tokens without jti (issued before it was added) can
+     * only be revoked per user.
+     */
+    @Transactional
+    public void revokeToken(VerifiedToken token) {
+        if (token.getTokenId() == null) {
+            return;
+        }
+        TokenRevocation saved = tokenRevocationRepository.save(TokenRevocation.builder()
+                .jti(token.getTokenId())
+                .userId(token.getUserId())
+                .expiresAt(token.getExpiresAt() != null ? token.getExpiresAt() : Instant.now().plus(accessTokenLifetime))
+                .createdAt(Instant.now())
+                .build());
+        AfterCommit.run(() -> apply(saved));
+    }
+
+    /**
+     * Revokes every access token issued to the user so far (forced sign-out).
+     */
+    @Transactional
+    public void revokeUser(UUID userId) {
+        Instant now = Instant.now();
+        TokenRevocation saved = tokenRevocationRepository.save(TokenRevocation.builder()
+                .userId(userId)
+                .revokedBefore(now)
+                .expiresAt(now.plus(accessTokenLifetime))
+                .createdAt(now)
+                .build());
+        AfterCommit.run(() -> apply(saved));
+    }
+
+    @PostConstruct
+    void load() {
+        List<TokenRevocation> rows = tokenRevocationRepository.findByExpiresAtAfter(Instant.now());
+        rows.forEach(this::apply);
+        log.debug("Loaded {} token revocations", rows.size());
+    }
+
+    /**
+     * Picks up rows written by other instances. Reads from {@code lastSeen - reload-overlap} so that
+     * rows committed late or written with a slightly skewed clock are not missed; applying a row twice
+     * is harmless. Also forgets entries whose tokens have all expired.
+     */
+    @Scheduled(fixedDelayString = "${spring.jwt.revocation.reload-interval:5s}",
+            initialDelayString = "${spring.jwt.revocation.reload-interval:5s}")
+    public void reload() {
+        Instant now = Instant.now();
+        tokenRevocationRepository.findByCreatedAtAfterAndExpiresAtAfter(lastSeen.minus(reloadOverlap), now)
+                .forEach(this::apply);
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        revokedUsers.values().removeIf(r -> !r.expiresAt().isAfter(now));
+    }
+
+    @Scheduled(fixedDelayString = "${spring.jwt.revocation.cleanup-interval:1h}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = tokenRevocationRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.debug("Deleted {} expired token revocations", deleted);
+        }
+    }
+
+    private void apply(TokenRevocation row) {
+        if (row.getJti() != null) {
+            revokedTokens.put(row.getJti(), row.getExpiresAt());
+        } else {
+            revokedUsers.merge(row.getUserId(), new Revocation(row.getRevokedBefore(), row.getExpiresAt()),
+                    (a, b) -> a.before().isAfter(b.before()) ? a : b);
+        }
+        if (row.getCreatedAt().isAfter(lastSeen)) {
+            lastSeen = row.getCreatedAt();
+        }
+    }
+
+    private record Revocation(Instant before, Instant expiresAt) {
+    }
+}
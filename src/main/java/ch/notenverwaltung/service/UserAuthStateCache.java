@@ -0,0 +1,48 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.dto.UserAuthState;
+import ch.notenverwaltung.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of each user's id, active flag and role version, used by stateless JWT
+ * authentication. Entries are invalidated after users are created or changed through the
+ * application, so that a cached absence does not reject a new account's tokens; the TTL bounds
+ * staleness for changes made outside the application.
+ */
+@Component
+public class UserAuthStateCache {
+
+    private final LoadingCache<String, Optional<UserAuthState>> cache;
+
+    public UserAuthStateCache(UserRepository userRepository,
+                              @Value("${spring.jwt.auth-state-cache.max-size:10000}") long maxSize,
+                              @Value("${spring.jwt.auth-state-cache.ttl:30s}") Duration ttl,
+                              MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(userRepository::findAuthStateByUsername);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userAuthStates");
+    }
+
+    /**
+     * Empty if the user does not exist (any more).
+     */
+    public Optional<UserAuthState> get(String username) {
+        return cache.get(username);
+    }
+
+    public void invalidate(String username) {
+        AfterCommit.run(() -> cache.invalidate(username));
+    }
+}
@@ -0,0 +1,311 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.config.BoundedPasswordEncoder;
+import ch.notenverwaltung.exception.InvalidImportFileException;
+import ch.notenverwaltung.model.dto.AdminCreateUserRequest;
+import ch.notenverwaltung.model.dto.UserBulkResponseDTO;
+import ch.notenverwaltung.model.dto.UserBulkResultDTO;
+import ch.notenverwaltung.model.entity.UuidV7Generator;
+import ch.notenverwaltung.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many user accounts at once, e.g. a class roster at the start of the school year.
+ * <p>
+ * Rows are validated with the constraints of {@link AdminCreateUserRequest}; usernames and emails
+ * are checked against the roster itself and against existing users with one query. Passwords of
+ * the accepted rows are hashed in parallel on a dedicated pool (one thread per core by default),
+ * then users and roles are inserted with JDBC batches in one transaction. Hashing happens before
+ * that transaction so no connection is held meanwhile; a username taken concurrently in between
+ * fails the whole insert with a constraint violation. Rejected rows are reported individually and
+ * do not stop the others.
+ */
+@Service
+@Slf4j
+public class UserProvisioningService {
+
+    private static final String DEFAULT_ROLE = "ROLE_USER";
+
+    private final UserRepository userRepository;
+    private final UserAuthStateCache userAuthStateCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final PasswordEncoder hashingEncoder;
+    private final ExecutorService hashingPool;
+    private final int maxRows;
+
+    public UserProvisioningService(UserRepository userRepository,
+                                   UserAuthStateCache userAuthStateCache,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   Validator validator,
+                                   BoundedPasswordEncoder passwordEncoder,
+                                   @Value("${spring.password-hashing.bulk-threads:0}") int threads,
+                                   @Value("${spring.users.bulk.max-rows:5000}") int maxRows) {
+        this.userRepository = userRepository;
+        this.userAuthStateCache = userAuthStateCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        // Bypasses the login pool: bulk hashing has its own threads and must not be shed with 503
+        this.hashingEncoder = passwordEncoder.getDelegate();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "bulk-password-hash-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.maxRows = maxRows;
+    }
+
+    public UserBulkResponseDTO provision(List<AdminCreateUserRequest> roster) {
+        List<Row> rows = new ArrayList<>(roster.size());
+        for (int i = 0; i < roster.size(); i++) {
+            rows.add(new Row(i, null, roster.get(i), null));
+        }
+        return provisionRows(rows);
+    }
+
+    /**
+     * CSV roster with the header username,password and optional columns first_name, last_name,
+     * email, date_of_birth (ISO date) and roles (separated by ';').
+     */
+    public UserBulkResponseDTO provisionCsv(InputStream csv) {
+        List<Row> rows = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            List<String> header = next(reader);
+            if (header == null) {
+                throw new InvalidImportFileException("The file is empty");
+            }
+            List<String> names = header.stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+            if (!names.contains("username") || !names.contains("password")) {
+                throw new InvalidImportFileException("Header must contain the columns username and password");
+            }
+            List<String> fields;
+            while ((fields = next(reader)) != null) {
+                checkSize(rows.size() + 1);
+                rows.add(fromCsv(rows.size(), reader.getRecordLine(), names, fields));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return provisionRows(rows);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    private UserBulkResponseDTO provisionRows(List<Row> rows) {
+        checkSize(rows.size());
+        List<UserBulkResultDTO> results = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            results.add(UserBulkResultDTO.builder()
+                    .index(row.index)
+                    .line(row.line)
+                    .username(row.request != null ? row.request.getUsername() : null)
+                    .build());
+        }
+
+        // Per-row validation and duplicates within the roster
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (Row row : rows) {
+            String error = row.error != null ? row.error : validate(row.request);
+            if (error == null && !usernames.add(row.request.getUsername())) {
+                error = "username appears more than once in the roster";
+            }
+            if (error == null && row.request.getEmail() != null && !emails.add(row.request.getEmail())) {
+                error = "email appears more than once in the roster";
+            }
+            row.error = error;
+        }
+
+        // Clashes with existing users, one query for all rows
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        if (!usernames.isEmpty()) {
+            for (Object[] existing : userRepository.findUsernamesAndEmailsIn(usernames,
+                    emails.isEmpty() ? Collections.singleton(null) : emails)) {
+                takenUsernames.add((String) existing[0]);
+                if (existing[1] != null) {
+                    takenEmails.add((String) existing[1]);
+                }
+            }
+        }
+        List<Row> accepted = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.error == null && takenUsernames.contains(row.request.getUsername())) {
+                row.error = "username already exists";
+            } else if (row.error == null && row.request.getEmail() != null && takenEmails.contains(row.request.getEmail())) {
+                row.error = "email already exists";
+            }
+            if (row.error != null) {
+                UserBulkResultDTO result = results.get(row.index);
+                result.setStatus(UserBulkResultDTO.Status.REJECTED);
+                result.setError(row.error);
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            List<String> passwordHashes = hash(accepted);
+            transactionTemplate.executeWithoutResult(status -> insert(accepted, passwordHashes));
+            for (Row row : accepted) {
+                UserBulkResultDTO result = results.get(row.index);
+                result.setStatus(UserBulkResultDTO.Status.CREATED);
+                result.setUserId(row.id);
+            }
+        }
+        log.info("Bulk user provisioning: {} created, {} rejected", accepted.size(), rows.size() - accepted.size());
+        return UserBulkResponseDTO.builder()
+                .created(accepted.size())
+                .rejected(rows.size() - accepted.size())
+                .results(results)
+                .build();
+    }
+
+    private List<String> hash(List<Row> rows) {
+        List<CompletableFuture<String>> hashes = rows.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> hashingEncoder.encode(row.request.getPassword()), hashingPool))
+                .toList();
+        return hashes.stream().map(CompletableFuture::join).toList();
+    }
+
+    private void insert(List<Row> rows, List<String> passwordHashes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> users = new ArrayList<>(rows.size());
+        List<Object[]> roles = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            AdminCreateUserRequest request = row.request;
+            row.id = UuidV7Generator.next();
+            users.add(new Object[]{row.id, request.getUsername(), passwordHashes.get(i), request.getFirstName(),
+                    request.getLastName(), request.getEmail(),
+                    request.getDateOfBirth() != null ? Date.valueOf(request.getDateOfBirth()) : null, now, now});
+            List<String> userRoles = request.getRoles() == null || request.getRoles().isEmpty()
+                    ? List.of(DEFAULT_ROLE)
+                    : UserService.normalizeRoles(request.getRoles());
+            for (String role : userRoles) {
+                roles.add(new Object[]{row.id, role});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, first_name, last_name, email, "
+                + "date_of_birth, active, role_version, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, TRUE, 0, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role) VALUES (?, ?)", roles);
+        rows.forEach(row -> userAuthStateCache.invalidate(row.request.getUsername()));
+    }
+
+    private String validate(AdminCreateUserRequest request) {
+        if (request == null) {
+            return "empty row";
+        }
+        Set<ConstraintViolation<AdminCreateUserRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void checkSize(int rows) {
+        if (rows > maxRows) {
+            throw new InvalidImportFileException("A roster may contain at most " + maxRows + " rows");
+        }
+    }
+
+    private static List<String> next(CsvReader reader) throws IOException {
+        try {
+            return reader.next();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImportFileException(e.getMessage());
+        }
+    }
+
+    private static Row fromCsv(int index, long line, List<String> names, List<String> fields) {
+        AdminCreateUserRequest request = new AdminCreateUserRequest();
+        request.setUsername(field(names, fields, "username"));
+        request.setPassword(field(names, fields, "password"));
+        request.setFirstName(field(names, fields, "first_name"));
+        request.setLastName(field(names, fields, "last_name"));
+        request.setEmail(field(names, fields, "email"));
+        String roles = field(names, fields, "roles");
+        if (roles != null) {
+            request.setRoles(Arrays.stream(roles.split(";")).map(String::trim).filter(r -> !r.isEmpty()).toList());
+        }
+        String error = null;
+        String dateOfBirth = field(names, fields, "date_of_birth");
+        if (dateOfBirth != null) {
+            try {
+                request.setDateOfBirth(LocalDate.parse(dateOfBirth));
+            } catch (DateTimeParseException e) {
+                error = "invalid date_of_birth '" + dateOfBirth + "', expected YYYY-MM-DD";
+            }
+        }
+        return new Row(index, line, request, error);
+    }
+
+    // Trimmed value of a column, null if the column is missing or empty (passwords are not trimmed)
+    private static String field(List<String> names, List<String> fields, String name) {
+        int i = names.indexOf(name);
+        if (i < 0 || i >= fields.size() || fields.get(i).isBlank()) {
+            return null;
+        }
+        return "password".equals(name) ? fields.get(i) : fields.get(i).trim();
+    }
+
+    private static final class Row {
+        private final int index;
+        private final Long line;
+        private final AdminCreateUserRequest request;
+        private String error;
+        private UUID id;
+
+        private Row(int index, Long line, AdminCreateUserRequest request, String error) {
+            this.index = index;
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+    }
+}
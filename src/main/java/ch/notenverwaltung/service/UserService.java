@@ -1,6 +1,8 @@
 package ch.notenverwaltung.service;
 
+import ch.notenverwaltung.model.dto.UserSummaryDTO;
 import ch.notenverwaltung.model.entity.User;
+import ch.notenverwaltung.repository.LikePatterns;
 import ch.notenverwaltung.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -17,6 +19,9 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserAuthStateCache userAuthStateCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
 
     public User createUser(String username, String password, List<String> roles) {
         List<String> normalized = normalizeRoles(roles);
@@ -25,7 +30,9 @@ public class UserService {
                 .password(passwordEncoder.encode(password))
                 .roles(normalized)
                 .build();
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userAuthStateCache.invalidate(username);
+        return saved;
     }
 
     public User createUserWithDetails(String username, String password, List<String> roles,
@@ -42,7 +49,9 @@ public class UserService {
                 .dateOfBirth(dateOfBirth)
                 .active(true)
                 .build();
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userAuthStateCache.invalidate(username);
+        return saved;
     }
 
     public Optional<User> findByUsername(String username) {
@@ -65,6 +74,10 @@ public class UserService {
         return userRepository.findByActiveTrue(pageable);
     }
 
+    public Page<UserSummaryDTO> searchUsers(String term, Pageable pageable) {
+        return userRepository.searchByName(LikePatterns.contains(term), pageable);
+    }
+
     public User createAdminUser(String password) {
         User admin = createUser("admin", password, Collections.singletonList("ROLE_ADMIN"));
         admin.setActive(true);
@@ -86,7 +99,9 @@ public class UserService {
         String normalized = normalizeRole(role);
         if (!user.getRoles().contains(normalized)) {
             user.getRoles().add(normalized);
+            user.setRoleVersion(user.getRoleVersion() + 1);
         }
+        userAuthStateCache.invalidate(username);
         return userRepository.save(user);
     }
 
@@ -95,7 +110,10 @@ public class UserService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new NoSuchElementException("User not found: " + username));
         String normalized = normalizeRole(role);
-        user.getRoles().remove(normalized);
+        if (user.getRoles().remove(normalized)) {
+            user.setRoleVersion(user.getRoleVersion() + 1);
+        }
+        userAuthStateCache.invalidate(username);
         return userRepository.save(user);
     }
 
@@ -103,7 +121,10 @@ public class UserService {
     public void deleteByUsername(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new NoSuchElementException("User not found: " + username));
+        // Refresh tokens go with the user; access tokens stay valid until revoked
+        tokenRevocationService.revokeUser(user.getId());
         userRepository.delete(user);
+        userAuthStateCache.invalidate(username);
     }
 
     @Transactional
@@ -111,10 +132,29 @@ public class UserService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new NoSuchElementException("User not found: " + username));
         user.setActive(active);
+        userAuthStateCache.invalidate(username);
+        if (!active) {
+            revokeTokens(user);
+        }
         return userRepository.save(user);
     }
 
-    private List<String> normalizeRoles(List<String> roles) {
+    /**
+     * Forced sign-out: revokes all access tokens issued to the user so far and all their refresh tokens.
+     */
+    @Transactional
+    public void signOut(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new NoSuchElementException("User not found: " + username));
+        revokeTokens(user);
+    }
+
+    private void revokeTokens(User user) {
+        tokenRevocationService.revokeUser(user.getId());
+        refreshTokenService.revokeAll(user.getId());
+    }
+
+    static List<String> normalizeRoles(List<String> roles) {
         if (roles == null) return Collections.emptyList();
         List<String> out = new ArrayList<>();
         for (String r : roles) {
@@ -123,7 +163,7 @@ public class UserService {
         return out;
     }
 
-    private String normalizeRole(String role) {
+    static String normalizeRole(String role) {
         if (role == null) return null;
         String r = role.trim();
         if (r.isEmpty()) return r;
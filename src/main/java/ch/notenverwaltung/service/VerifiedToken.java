@@ -0,0 +1,38 @@
+package ch.notenverwaltung.service;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims of a token whose signature and expiry have been checked by {@link JwtTokenProvider#verify}.
+ * Immutable, so one instance can be shared by all requests presenting the same token.
+ */
+@Getter
+public final class VerifiedToken {
+
+    private final String tokenId; // jti, null for tokens issued before it was added
+    private final String subject;
+    private final UUID userId; // null if the token has no uid claim
+    private final List<String> roles; // null if the token has no roles claim
+    private final Long roleVersion; // null if the token has no rv claim
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+
+    VerifiedToken(String tokenId, String subject, UUID userId, List<String> roles, Long roleVersion,
+                  Instant issuedAt, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.userId = userId;
+        this.roles = roles != null ? List.copyOf(roles) : null;
+        this.roleVersion = roleVersion;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
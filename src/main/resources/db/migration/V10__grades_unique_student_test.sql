@@ -0,0 +1,20 @@
+-- A student has at most one grade per test. Of existing duplicates the most recently created
+-- grade is kept. Grades without a test are not affected.
+DELETE FROM public.grades g
+USING (
+    SELECT id, row_number() OVER (PARTITION BY student_id, test_id ORDER BY created_on DESC, id DESC) AS rn
+    FROM public.grades
+    WHERE test_id IS NOT NULL
+) d
+WHERE g.id = d.id AND d.rn > 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_grades_student_test ON public.grades (student_id, test_id) WHERE test_id IS NOT NULL;
+
+-- Recompute the aggregates without the removed duplicates
+DELETE FROM public.grade_aggregates;
+
+INSERT INTO public.grade_aggregates (student_id, semester_subject_id, weighted_sum, weight_sum, grade_count)
+SELECT g.student_id, t.semester_subject_id, sum(g.value * g.weight), sum(g.weight), count(*)
+FROM public.grades g
+JOIN public.tests t ON t.id = g.test_id
+GROUP BY g.student_id, t.semester_subject_id;
@@ -0,0 +1,19 @@
+-- Indexes on foreign keys and lookup columns; V1 only has the indexes behind its constraints.
+-- grades.student_id is already covered by idx_grades_student_created_on_id (V4) and
+-- uq_grades_student_test (V10), semester_subjects.semester_id by its (semester_id, subject_id)
+-- unique constraint.
+
+-- Grades of a test: semester reports join tests to grades, deleting a test, batch entry
+-- (grades of a test for a set of students)
+CREATE INDEX IF NOT EXISTS idx_grades_test_student ON public.grades (test_id, student_id);
+
+-- Tests of a semester subject (semester reports, aggregate rebuilds) and of a class
+CREATE INDEX IF NOT EXISTS idx_tests_semester_subject ON public.tests (semester_subject_id);
+CREATE INDEX IF NOT EXISTS idx_tests_class ON public.tests (class_id);
+
+CREATE INDEX IF NOT EXISTS idx_classes_semester_subject ON public.classes (semester_subject_id);
+
+CREATE INDEX IF NOT EXISTS idx_semester_subjects_subject ON public.semester_subjects (subject_id);
+
+-- Roles are loaded with every user
+CREATE INDEX IF NOT EXISTS idx_user_roles_user_role ON public.user_roles (user_id, role);
@@ -0,0 +1,7 @@
+-- Support keyset (cursor) paging over grades ordered by (created_on DESC, id DESC)
+CREATE INDEX IF NOT EXISTS idx_grades_created_on_id
+    ON public.grades (created_on DESC, id DESC);
+
+-- Same order per student (own grades, admin filter by student); also covers lookups by student_id
+CREATE INDEX IF NOT EXISTS idx_grades_student_created_on_id
+    ON public.grades (student_id, created_on DESC, id DESC);
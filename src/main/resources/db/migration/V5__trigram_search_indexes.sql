@@ -0,0 +1,14 @@
+-- Trigram indexes for case-insensitive substring search (lower(col) LIKE '%term%')
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm
+    ON public.users USING gin (lower(username) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_first_name_trgm
+    ON public.users USING gin (lower(first_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_users_last_name_trgm
+    ON public.users USING gin (lower(last_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_tests_name_trgm
+    ON public.tests USING gin (lower(name) gin_trgm_ops);
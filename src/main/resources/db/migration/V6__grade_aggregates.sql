@@ -0,0 +1,21 @@
+-- Running weighted sums per student and semester subject, maintained by GradeService on every
+-- grade write. Grades without a test have no semester subject and are not aggregated.
+CREATE TABLE IF NOT EXISTS public.grade_aggregates (
+    student_id UUID NOT NULL,
+    semester_subject_id UUID NOT NULL,
+    weighted_sum NUMERIC(19,4) NOT NULL,
+    weight_sum NUMERIC(19,2) NOT NULL,
+    grade_count BIGINT NOT NULL,
+    CONSTRAINT grade_aggregates_pkey PRIMARY KEY (student_id, semester_subject_id),
+    CONSTRAINT fk_grade_aggregates_student FOREIGN KEY (student_id) REFERENCES public.users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_grade_aggregates_semester_subject FOREIGN KEY (semester_subject_id) REFERENCES public.semester_subjects(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_grade_aggregates_semester_subject ON public.grade_aggregates (semester_subject_id);
+
+-- Initial fill from existing grades
+INSERT INTO public.grade_aggregates (student_id, semester_subject_id, weighted_sum, weight_sum, grade_count)
+SELECT g.student_id, t.semester_subject_id, sum(g.value * g.weight), sum(g.weight), count(*)
+FROM public.grades g
+JOIN public.tests t ON t.id = g.test_id
+GROUP BY g.student_id, t.semester_subject_id;
@@ -0,0 +1,2 @@
+-- Incremented whenever a user's roles change; tokens carry the version they were issued with (claim "rv")
+ALTER TABLE public.users ADD COLUMN IF NOT EXISTS role_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,18 @@
+-- Rotating refresh tokens. Only the SHA-256 of a token is stored; all tokens rotated from the same
+-- login share a family_id, so reuse of an already rotated token can revoke the whole family.
+CREATE TABLE IF NOT EXISTS public.refresh_tokens (
+    id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    token_hash VARCHAR(64) NOT NULL,
+    family_id UUID NOT NULL,
+    created_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL,
+    expires_at TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL,
+    used_at TIMESTAMP(6) WITHOUT TIME ZONE,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    CONSTRAINT refresh_tokens_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_refresh_tokens_token_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES public.users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON public.refresh_tokens (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user ON public.refresh_tokens (user_id);
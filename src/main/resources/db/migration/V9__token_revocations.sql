@@ -0,0 +1,17 @@
+-- Revoked access tokens. A row either revokes a single token (jti) or every token of a user issued
+-- at or before revoked_before (logout everywhere, forced sign-out). Rows are only needed until
+-- expires_at, after which the tokens they cover have expired anyway.
+CREATE TABLE IF NOT EXISTS public.token_revocations (
+    id BIGSERIAL NOT NULL,
+    jti VARCHAR(64),
+    user_id UUID,
+    revoked_before TIMESTAMP(6) WITH TIME ZONE,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT token_revocations_pkey PRIMARY KEY (id),
+    CONSTRAINT ck_token_revocations_target CHECK (jti IS NOT NULL OR (user_id IS NOT NULL AND revoked_before IS NOT NULL))
+);
+
+-- Incremental reloads read rows by created_at; cleanup deletes by expires_at
+CREATE INDEX IF NOT EXISTS idx_token_revocations_created_at ON public.token_revocations (created_at);
+CREATE INDEX IF NOT EXISTS idx_token_revocations_expires_at ON public.token_revocations (expires_at);
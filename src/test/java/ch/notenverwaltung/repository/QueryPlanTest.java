@@ -0,0 +1,455 @@
+package ch.notenverwaltung.repository;
+
+import ch.notenverwaltung.model.dto.SyntheticDataRequest;
+import ch.notenverwaltung.model.entity.Grade;
+import ch.notenverwaltung.service.GradeAggregateService;
+import ch.notenverwaltung.service.SemesterReportCache;
+import ch.notenverwaltung.service.SyntheticDataGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards the indexes of V4, V10 and V11 against plan regressions: loads a synthetic dataset of
+ * 4,000 students in 80 semester subjects (640,000 grades), calls the main repository lookups,
+ * runs every statement Hibernate sent for them with the same bound parameters under
+ * EXPLAIN (FORMAT JSON) and fails if a large table is read with a sequential scan. The statements
+ * are captured at the JDBC level (see {@link StatementRecorder}), so the plans are those of the
+ * generated SQL, joins, ORDER BY and limits included. Needs Docker and is skipped without it.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SyntheticDataGenerator.class, GradeAggregateService.class, SemesterReportCache.class, QueryPlanTest.Beans.class})
+class QueryPlanTest {
+
+    // Same major version as docker-compose.yml
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13");
+
+    // Tables large enough that a sequential scan in a lookup is a regression
+    private static final Set<String> LARGE_TABLES = Set.of("users", "user_roles", "grades", "tests", "classes");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // The dataset is loaded once for all tests
+    private static boolean loaded;
+    private static UUID studentId;
+    private static String username;
+    private static UUID testId;
+    private static UUID classId;
+    private static UUID semesterSubjectId;
+    private static UUID semesterId;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @TestConfiguration
+    static class Beans {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+
+    @Autowired
+    private SyntheticDataGenerator generator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StatementRecorder recorder;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private SchoolClassRepository schoolClassRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void loadDataset() {
+        if (loaded) {
+            return;
+        }
+        generator.generate(SyntheticDataRequest.builder()
+                .students(4_000)
+                .subjects(20)
+                .semesters(4)
+                .testsPerClass(2)
+                .classSize(25)
+                .seed(7)
+                .build());
+        jdbcTemplate.execute("ANALYZE");
+
+        username = "gen-7-student-2000";
+        studentId = jdbcTemplate.queryForObject("select id from users where username = ?", UUID.class, username);
+        Map<String, Object> test = jdbcTemplate.queryForMap("select t.id, t.class_id, t.semester_subject_id, ss.semester_id "
+                + "from grades g join tests t on t.id = g.test_id join semester_subjects ss on ss.id = t.semester_subject_id "
+                + "where g.student_id = ? limit 1", studentId);
+        testId = (UUID) test.get("id");
+        classId = (UUID) test.get("class_id");
+        semesterSubjectId = (UUID) test.get("semester_subject_id");
+        semesterId = (UUID) test.get("semester_id");
+        loaded = true;
+    }
+
+    @Test
+    void gradesOfStudentInCreationOrder() throws Exception {
+        // GET /grades?studentId=..., own grades: offset paging with count, keyset paging and its next page
+        GradeFilter filter = GradeFilter.builder().studentId(studentId).build();
+        assertIndexScansOnly(capture(() -> gradeRepository.findAll(GradeSpecifications.matching(filter),
+                PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdOn")))));
+        List<Grade> firstPage = new ArrayList<>();
+        assertIndexScansOnly(capture(() -> firstPage.addAll(gradeRepository.findKeysetPage(GradeSpecifications.matching(filter), 21))));
+        Grade last = firstPage.get(firstPage.size() - 1);
+        GradeCursor cursor = new GradeCursor(last.getCreatedOn(), last.getId());
+        assertIndexScansOnly(capture(() -> gradeRepository.findKeysetPage(
+                GradeSpecifications.matching(filter).and(GradeSpecifications.after(cursor)), 21)));
+    }
+
+    @Test
+    void gradeViewOfStudentFilteredByValue() throws Exception {
+        // GET /grades/view/own with a value range: joins users and tests for the projection
+        GradeFilter filter = GradeFilter.builder()
+                .studentId(studentId)
+                .valueMin(new BigDecimal("4.00"))
+                .valueMax(new BigDecimal("6.00"))
+                .build();
+        assertIndexScansOnly(capture(() -> gradeRepository.findViewPage(GradeSpecifications.matching(filter),
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdOn")))));
+        assertIndexScansOnly(capture(() -> gradeRepository.findViewKeysetPage(GradeSpecifications.matching(filter), 21)));
+    }
+
+    @Test
+    void gradesOfTestFilteredByTest() throws Exception {
+        GradeFilter filter = GradeFilter.builder().testId(testId).build();
+        assertIndexScansOnly(capture(() -> gradeRepository.findAll(GradeSpecifications.matching(filter), PageRequest.of(0, 20))));
+    }
+
+    @Test
+    void semesterGradesOfStudent() throws Exception {
+        // Semester report of one student, as list and as ordered stream
+        assertIndexScansOnly(capture(() -> gradeRepository.findSemesterGrades(semesterId, studentId)));
+        List<RecordedStatement> streamed = capture(() -> {
+            try (Stream<?> rows = gradeRepository.streamSemesterGrades(semesterId, studentId)) {
+                rows.forEach(row -> { });
+            }
+        });
+        assertOrdered(streamed);
+        assertIndexScansOnly(streamed);
+    }
+
+    @Test
+    void semesterGradesOfAllStudents() throws Exception {
+        // Whole-semester report (studentId = null): a quarter of all grades, tests and every student is
+        // read, so hash joins over sequential scans of those tables are the right plan. What must not
+        // happen is a large table scanned again for every outer row, or a query per student.
+        List<RecordedStatement> streamed = capture(() -> {
+            try (Stream<?> rows = gradeRepository.streamSemesterGrades(semesterId, null)) {
+                rows.forEach(row -> { });
+            }
+        });
+        assertEquals(1, streamed.size(), () -> "Expected one statement, got " + streamed);
+        assertOrdered(streamed);
+        assertNoRepeatedScans(streamed, "users", "grades", "tests");
+        assertNoRepeatedScans(capture(() -> gradeRepository.findSemesterGrades(semesterId, null)), "users", "grades", "tests");
+    }
+
+    @Test
+    void gradeOfStudentForTest() throws Exception {
+        // Upsert conflict target and the previous-value lookup; rolled back by capture()
+        assertIndexScansOnly(capture(() -> gradeRepository.upsert(UUID.randomUUID(), studentId, testId,
+                new BigDecimal("5.00"), new BigDecimal("1.00"), null)));
+        assertIndexScansOnly(capture(() -> gradeRepository.countByStudent_IdAndTestIsNull(studentId)));
+    }
+
+    @Test
+    void gradesOfTest() throws Exception {
+        // Existing grades in batch entry, grades per test in bulk imports
+        assertIndexScansOnly(capture(() -> gradeRepository.findByTest_IdAndStudent_IdIn(testId, List.of(studentId))));
+        assertIndexScansOnly(capture(() -> gradeRepository.findStudentAndTestIdsByTestIdIn(List.of(testId))));
+    }
+
+    @Test
+    void testsOfClass() throws Exception {
+        // Tests with their eagerly loaded semester subject and class
+        assertIndexScansOnly(capture(() -> testRepository.findBySchoolClass_Id(classId)));
+        assertIndexScansOnly(capture(() -> testRepository.findSemesterSubjectIdsByClassId(classId)));
+        assertIndexScansOnly(capture(() -> testRepository.findSemesterIdsByClassId(classId)));
+    }
+
+    @Test
+    void firstClassOfSemesterSubject() throws Exception {
+        // With fetch first 1 row, a sequential scan of classes that stops at the first match is a
+        // legitimate plan; the eager loads that follow must still use indexes
+        assertIndexScansOnly(capture(() -> schoolClassRepository.findFirstBySemesterSubject_Id(semesterSubjectId)), "classes");
+    }
+
+    @Test
+    void userWithRoles() throws Exception {
+        // Login and every authenticated request; the user's roles are loaded eagerly
+        assertIndexScansOnly(capture(() -> userRepository.findByUsername(username)));
+        assertIndexScansOnly(capture(() -> userRepository.findAuthStateByUsername(username)));
+        assertIndexScansOnly(capture(() -> userRepository.findById(studentId)));
+    }
+
+    // Runs the call in a transaction that is rolled back and returns the statements it sent
+    private List<RecordedStatement> capture(Runnable call) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<RecordedStatement> statements;
+        recorder.start();
+        try {
+            transaction.executeWithoutResult(status -> {
+                call.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            statements = recorder.drain();
+        }
+        assertFalse(statements.isEmpty(), "No statement recorded");
+        return statements;
+    }
+
+    private static void assertOrdered(List<RecordedStatement> statements) {
+        assertTrue(statements.get(0).sql().toLowerCase(Locale.ROOT).contains("order by"),
+                () -> "Expected an ORDER BY in: " + statements.get(0).sql());
+    }
+
+    // No statement may read a large table sequentially, except the given ones, and every statement
+    // reading a large table must use an index
+    private void assertIndexScansOnly(List<RecordedStatement> statements, String... sequentialScansAllowed) throws Exception {
+        Set<String> allowed = Set.of(sequentialScansAllowed);
+        for (RecordedStatement statement : statements) {
+            JsonNode plan = explain(statement);
+            Scans scans = new Scans();
+            scans.collect(plan, false);
+            List<String> unexpected = scans.sequential.stream().filter(t -> !allowed.contains(t)).toList();
+            assertTrue(unexpected.isEmpty(), () -> "Sequential scan on " + unexpected + " for: " + statement.sql() + "\n" + plan.toPrettyString());
+            assertFalse(scans.large && scans.indexes.isEmpty() && scans.sequential.isEmpty(),
+                    () -> "No index used for: " + statement.sql() + "\n" + plan.toPrettyString());
+        }
+    }
+
+    // Large tables may only be read sequentially if they are among the given ones, and then only
+    // once, not as the inner side of a nested loop
+    private void assertNoRepeatedScans(List<RecordedStatement> statements, String... sequentialScansAllowed) throws Exception {
+        Set<String> allowed = Set.of(sequentialScansAllowed);
+        for (RecordedStatement statement : statements) {
+            JsonNode plan = explain(statement);
+            Scans scans = new Scans();
+            scans.collect(plan, false);
+            List<String> unexpected = scans.sequential.stream().filter(t -> !allowed.contains(t)).toList();
+            assertTrue(unexpected.isEmpty(), () -> "Sequential scan on " + unexpected + " for: " + statement.sql() + "\n" + plan.toPrettyString());
+            assertTrue(scans.repeated.isEmpty(), () -> "Repeated sequential scan on " + scans.repeated + " for: " + statement.sql() + "\n" + plan.toPrettyString());
+        }
+    }
+
+    private JsonNode explain(RecordedStatement statement) throws Exception {
+        String json = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("explain (format json) " + statement.sql())) {
+                statement.bind(explain);
+                try (ResultSet rs = explain.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+        return objectMapper.readTree(json).get(0).get("Plan");
+    }
+
+    // Sequential scans of large tables and indexes used in a plan
+    private static final class Scans {
+        private boolean large;
+        private final List<String> sequential = new ArrayList<>();
+        private final List<String> repeated = new ArrayList<>();
+        private final List<String> indexes = new ArrayList<>();
+
+        // inner: below the inner side of a nested loop, i.e. executed once per outer row
+        private void collect(JsonNode node, boolean inner) {
+            String relation = node.path("Relation Name").asText(null);
+            String type = node.path("Node Type").asText();
+            large |= LARGE_TABLES.contains(relation);
+            if ("Seq Scan".equals(type) && LARGE_TABLES.contains(relation)) {
+                sequential.add(relation);
+                if (inner) {
+                    repeated.add(relation);
+                }
+            }
+            if (node.has("Index Name")) {
+                indexes.add(node.get("Index Name").asText());
+            }
+            for (JsonNode child : node.path("Plans")) {
+                collect(child, inner || ("Nested Loop".equals(type) && "Inner".equals(child.path("Parent Relationship").asText())));
+            }
+        }
+    }
+
+    /**
+     * SQL of a prepared statement and the setter calls that bound its parameters, in order.
+     */
+    record RecordedStatement(String sql, List<Binding> bindings) {
+
+        void bind(PreparedStatement statement) throws SQLException {
+            for (Binding binding : bindings) {
+                invoke(binding.setter(), statement, binding.args());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    record Binding(Method setter, Object[] args) {
+    }
+
+    /**
+     * Wraps the DataSource so that, while recording on the current thread, every prepared
+     * statement's SQL and parameter setter calls are kept for {@link #explain}.
+     */
+    static class StatementRecorder implements BeanPostProcessor {
+        private final ThreadLocal<List<RecordedStatement>> recording = new ThreadLocal<>();
+
+        void start() {
+            recording.set(new ArrayList<>());
+        }
+
+        List<RecordedStatement> drain() {
+            List<RecordedStatement> statements = recording.get();
+            recording.remove();
+            return statements != null ? statements : List.of();
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return connection(super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return connection(super.getConnection(username, password));
+                }
+            };
+        }
+
+        private Connection connection(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(method, connection, args);
+                        List<RecordedStatement> statements = recording.get();
+                        if (statements != null && method.getName().equals("prepareStatement")) {
+                            RecordedStatement statement = new RecordedStatement((String) args[0], new ArrayList<>());
+                            statements.add(statement);
+                            return statement((PreparedStatement) result, statement);
+                        }
+                        return result;
+                    });
+        }
+
+        private PreparedStatement statement(PreparedStatement statement, RecordedStatement recorded) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("set") && args != null && args.length >= 2
+                                && method.getParameterTypes()[0] == int.class) {
+                            recorded.bindings().add(new Binding(method, args.clone()));
+                        }
+                        return invoke(method, statement, args);
+                    });
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
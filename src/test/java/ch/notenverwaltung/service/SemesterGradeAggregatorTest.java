@@ -0,0 +1,199 @@
+package ch.notenverwaltung.service;
+
+import ch.notenverwaltung.model.dto.GradeItemDTO;
+import ch.notenverwaltung.model.dto.SemesterGradeRow;
+import ch.notenverwaltung.model.dto.StudentSemesterResultDTO;
+import ch.notenverwaltung.model.dto.SubjectResultDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The aggregator must give bit-for-bit the same results (value and scale) as the BigDecimal
+ * pipeline it replaced, which is kept below as {@link #reference}.
+ */
+class SemesterGradeAggregatorTest {
+
+    private final SemesterGradeAggregator aggregator = new SemesterGradeAggregator();
+
+    @Test
+    void averageMatchesBigDecimalDivide() {
+        // Weighted sums scaled by 10^4, weight sums by 10^2, both signs
+        for (long weightedSum = -3000; weightedSum <= 3000; weightedSum++) {
+            for (long weightSum = -250; weightSum <= 250; weightSum++) {
+                if (weightSum != 0) {
+                    assertEquals(divide(weightedSum, weightSum), SemesterGradeAggregator.average(weightedSum, weightSum),
+                            weightedSum + " / " + weightSum);
+                }
+            }
+        }
+    }
+
+    @Test
+    void averageRoundsTiesAwayFromZero() {
+        // 1.005 and 4.125 / 1.00 etc. are exact ties at the third decimal
+        long[][] ties = {{10050, 100}, {-10050, 100}, {10050, -100}, {-10050, -100}, {41250, 1000}, {5, 1}, {-5, 1},
+                {45150, 300}, {-45150, 300}};
+        for (long[] tie : ties) {
+            assertEquals(divide(tie[0], tie[1]), SemesterGradeAggregator.average(tie[0], tie[1]), tie[0] + " / " + tie[1]);
+        }
+        assertEquals(new BigDecimal("1.01"), SemesterGradeAggregator.average(10050, 100));
+        assertEquals(new BigDecimal("-1.01"), SemesterGradeAggregator.average(-10050, 100));
+    }
+
+    @Test
+    void averageOfZeroWeightIsNull() {
+        assertNull(SemesterGradeAggregator.average(0, 0));
+        assertNull(SemesterGradeAggregator.average(12345, 0));
+    }
+
+    @Test
+    void nullValuesAndWeightsCountAsZero() {
+        UUID student = UUID.randomUUID();
+        UUID subject = UUID.randomUUID();
+        List<SemesterGradeRow> rows = List.of(
+                row(student, subject, "5.50", "1.00"),
+                row(student, subject, null, "1.00"),
+                row(student, subject, "4.00", null),
+                row(student, UUID.randomUUID(), null, null));
+        assertSameAsReference(rows);
+    }
+
+    @Test
+    void overallGradeOnlyCountsSubjectsWithPositiveWeight() {
+        UUID student = UUID.randomUUID();
+        UUID positive = UUID.randomUUID();
+        UUID negative = UUID.randomUUID();
+        UUID zero = UUID.randomUUID();
+        List<SemesterGradeRow> rows = List.of(
+                row(student, positive, "4.50", "2.00"),
+                row(student, positive, "5.25", "1.00"),
+                row(student, negative, "6.00", "-1.50"),
+                row(student, negative, "3.00", "0.50"),
+                row(student, zero, "2.00", "1.00"),
+                row(student, zero, "5.00", "-1.00"));
+        List<StudentSemesterResultDTO> result = assertSameAsReference(rows);
+        assertEquals(new BigDecimal("4.75"), result.get(0).getOverallGrade());
+        assertNull(result.get(0).getSubjects().get(2).getCalculatedGrade());
+    }
+
+    @Test
+    void onlyNegativeWeightsGiveNoOverallGrade() {
+        UUID student = UUID.randomUUID();
+        List<StudentSemesterResultDTO> result = assertSameAsReference(List.of(row(student, UUID.randomUUID(), "4.00", "-1.00")));
+        assertNull(result.get(0).getOverallGrade());
+        assertEquals(new BigDecimal("4.00"), result.get(0).getSubjects().get(0).getCalculatedGrade());
+    }
+
+    @Test
+    void randomRowsMatchReference() {
+        Random random = new Random(42);
+        List<UUID> students = new ArrayList<>();
+        List<UUID> subjects = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            students.add(new UUID(1, i));
+        }
+        for (int i = 0; i < 6; i++) {
+            subjects.add(new UUID(2, i));
+        }
+        List<SemesterGradeRow> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String value = random.nextInt(20) == 0 ? null : BigDecimal.valueOf(100 + random.nextInt(501), 2).toPlainString();
+            String weight = random.nextInt(20) == 0 ? null : BigDecimal.valueOf(random.nextInt(501) - 150, 2).toPlainString();
+            rows.add(row(students.get(random.nextInt(students.size())), subjects.get(random.nextInt(subjects.size())), value, weight));
+        }
+        assertSameAsReference(rows);
+
+        // The streaming variant sees the rows grouped by student
+        List<SemesterGradeRow> grouped = new ArrayList<>(rows);
+        grouped.sort(Comparator.comparing(SemesterGradeRow::getStudentId));
+        List<StudentSemesterResultDTO> streamed = new ArrayList<>();
+        aggregator.aggregate(grouped.iterator(), streamed::add);
+        assertEquals(reference(grouped), streamed);
+    }
+
+    private List<StudentSemesterResultDTO> assertSameAsReference(List<SemesterGradeRow> rows) {
+        List<StudentSemesterResultDTO> result = aggregator.aggregate(rows);
+        assertEquals(reference(rows), result);
+        return result;
+    }
+
+    private static BigDecimal divide(long weightedSum, long weightSum) {
+        return BigDecimal.valueOf(weightedSum, 4).divide(BigDecimal.valueOf(weightSum, 2), 2, RoundingMode.HALF_UP);
+    }
+
+    private static SemesterGradeRow row(UUID student, UUID subject, String value, String weight) {
+        return new SemesterGradeRow(UUID.randomUUID(), student, "First", "Last", subject, "Subject", UUID.randomUUID(),
+                "Test", null, value != null ? new BigDecimal(value) : null, weight != null ? new BigDecimal(weight) : null, null);
+    }
+
+    // The BigDecimal pipeline GradeService used before SemesterGradeAggregator
+    private static List<StudentSemesterResultDTO> reference(List<SemesterGradeRow> rows) {
+        Map<UUID, List<SemesterGradeRow>> byStudent = new LinkedHashMap<>();
+        for (SemesterGradeRow row : rows) {
+            byStudent.computeIfAbsent(row.getStudentId(), k -> new ArrayList<>()).add(row);
+        }
+        List<StudentSemesterResultDTO> result = new ArrayList<>();
+        for (Map.Entry<UUID, List<SemesterGradeRow>> student : byStudent.entrySet()) {
+            List<SemesterGradeRow> studentRows = student.getValue();
+            Map<UUID, List<SemesterGradeRow>> bySubject = new LinkedHashMap<>();
+            for (SemesterGradeRow row : studentRows) {
+                bySubject.computeIfAbsent(row.getSubjectId(), k -> new ArrayList<>()).add(row);
+            }
+            List<SubjectResultDTO> subjects = new ArrayList<>();
+            BigDecimal totalWeightedSum = BigDecimal.ZERO;
+            BigDecimal totalWeight = BigDecimal.ZERO;
+            for (Map.Entry<UUID, List<SemesterGradeRow>> subject : bySubject.entrySet()) {
+                List<SemesterGradeRow> subjectRows = subject.getValue();
+                BigDecimal weightedSum = subjectRows.stream()
+                        .map(r -> safe(r.getValue()).multiply(safe(r.getWeight())))
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                BigDecimal weight = subjectRows.stream()
+                        .map(r -> safe(r.getWeight()))
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                if (weight.compareTo(BigDecimal.ZERO) > 0) {
+                    totalWeightedSum = totalWeightedSum.add(weightedSum);
+                    totalWeight = totalWeight.add(weight);
+                }
+                subjects.add(SubjectResultDTO.builder()
+                        .subjectId(subject.getKey())
+                        .subjectName(subjectRows.stream().map(SemesterGradeRow::getSubjectName).filter(Objects::nonNull).findFirst().orElse(null))
+                        .calculatedGrade(weight.compareTo(BigDecimal.ZERO) == 0 ? null : weightedSum.divide(weight, 2, RoundingMode.HALF_UP))
+                        .grades(subjectRows.stream().map(r -> GradeItemDTO.builder()
+                                .gradeId(r.getGradeId())
+                                .testId(r.getTestId())
+                                .testName(r.getTestName())
+                                .testDate(r.getTestDate())
+                                .value(r.getValue())
+                                .weight(r.getWeight())
+                                .gradeComment(r.getGradeComment())
+                                .build()).toList())
+                        .build());
+            }
+            result.add(StudentSemesterResultDTO.builder()
+                    .studentId(student.getKey())
+                    .studentFirstName(studentRows.stream().map(SemesterGradeRow::getStudentFirstName).filter(Objects::nonNull).findFirst().orElse(null))
+                    .studentLastName(studentRows.stream().map(SemesterGradeRow::getStudentLastName).filter(Objects::nonNull).findFirst().orElse(null))
+                    .overallGrade(totalWeight.compareTo(BigDecimal.ZERO) == 0 ? null : totalWeightedSum.divide(totalWeight, 2, RoundingMode.HALF_UP))
+                    .subjects(subjects)
+                    .build());
+        }
+        return result;
+    }
+
+    private static BigDecimal safe(BigDecimal v) {
+        return v == null ? BigDecimal.ZERO : v;
+    }
+}